@@ -0,0 +1,40 @@
+#!/bin/sh
+# Compara hilos de plataforma contra hilos virtuales con PruebaDeCarga.
+# Requiere JDK 21 (el perfil hilos-virtuales compila con --release 21).
+# Por defecto usa H2 en memoria; para MySQL agregar a ARGS_SPRING la URL, usuario y clave de una base sembrada.
+#
+#   benchmark/carga/comparar.sh [escenario: detalle|listado|login] [segundos] [concurrencias]
+set -e
+cd "$(dirname "$0")/../.."
+
+ESCENARIO=${1:-detalle}
+SEGUNDOS=${2:-30}
+CONCURRENCIAS=${3:-200,1000,5000}
+POOL=${HIKARI_MAXIMO:-20}
+PUERTO=${PUERTO:-8089}
+
+mvn -B -q -Pbenchmark,hilos-virtuales test-compile
+mvn -B -q -Pbenchmark,hilos-virtuales dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=target/classpath-carga.txt
+CP="target/test-classes:target/classes:$(cat target/classpath-carga.txt)"
+
+# con 5000 clientes hace falta un limite de archivos abiertos alto en ambos procesos
+ulimit -n 65536 2>/dev/null || true
+
+correr() {
+  modo=$1; shift
+  java -Xms1g -Xmx1g -cp "$CP" med.voll.api.benchmark.ServidorDeCarga --server.port="$PUERTO" \
+      --spring.datasource.hikari.maximum-pool-size="$POOL" --spring.datasource.hikari.minimum-idle="$POOL" \
+      --server.tomcat.max-connections=10000 $ARGS_SPRING "$@" > "target/servidor-$modo.log" 2>&1 &
+  servidor=$!
+  until grep -q "ServidorDeCarga listo" "target/servidor-$modo.log"; do
+    kill -0 $servidor 2>/dev/null || { cat "target/servidor-$modo.log"; exit 1; }
+    sleep 1
+  done
+  echo "== $modo"
+  java -cp "$CP" med.voll.api.benchmark.PruebaDeCarga "http://localhost:$PUERTO" "$ESCENARIO" "$SEGUNDOS" "$CONCURRENCIAS"
+  kill $servidor
+  wait $servidor 2>/dev/null || true
+}
+
+correr plataforma
+correr virtuales --spring.profiles.active=hilos-virtuales
@@ -0,0 +1,92 @@
+-- Benchmark de las consultas de reserva sobre 1M de consultas, antes y despues de V8.
+-- Uso (MySQL 8.0.18+): mysql -uroot -p < benchmark/sql/consultas-indices.sql
+-- Crea y borra su propia base vollmed_bench; los tiempos salen en la columna "actual time" de EXPLAIN ANALYZE.
+
+drop database if exists vollmed_bench;
+create database vollmed_bench;
+use vollmed_bench;
+
+create table medicos(
+    id bigint not null auto_increment,
+    nombre varchar(100) not null,
+    especialidad varchar(100) not null,
+    activo tinyint,
+    primary key(id)
+);
+
+create table pacientes(
+    id bigint not null auto_increment,
+    nombre varchar(100) not null,
+    activo tinyint not null,
+    primary key(id)
+);
+
+-- misma estructura que V6 + V7
+create table consultas(
+    id bigint not null auto_increment,
+    medico_id bigint not null,
+    paciente_id bigint not null,
+    fecha datetime not null,
+    motivo_cancelamiento varchar(100),
+    primary key(id),
+    constraint fk_consultas_medico_id foreign key(medico_id) references medicos(id),
+    constraint fk_consultas_paciente_id foreign key(paciente_id) references pacientes(id)
+);
+
+set session cte_max_recursion_depth = 1000000;
+
+insert into medicos(nombre, especialidad, activo)
+with recursive n(i) as (select 1 union all select i + 1 from n where i < 500)
+select concat('Medico ', i), elt(1 + i % 4, 'ORTOPEDIA', 'CARDIOLOGIA', 'GINECOLOGIA', 'PEDIATRIA'), 1 from n;
+
+insert into pacientes(nombre, activo)
+with recursive n(i) as (select 1 union all select i + 1 from n where i < 100000)
+select concat('Paciente ', i), 1 from n;
+
+-- cada medico recibe una consulta por hora, sin repetir (medico, fecha); 1 de cada 10 cancelada
+insert into consultas(medico_id, paciente_id, fecha, motivo_cancelamiento)
+with recursive n(i) as (select 0 union all select i + 1 from n where i < 999999)
+select 1 + i % 500,
+       1 + (i * 7919) % 100000,
+       timestamp('2026-01-05 07:00:00') + interval (i div 500) hour,
+       if(i % 10 = 0, 'PACIENTE_DESISTIO', null)
+from n;
+
+analyze table medicos, pacientes, consultas;
+
+-- ---------- antes de V8 ----------
+explain analyze select exists(select 1 from consultas c
+    where c.medico_id = 250 and c.fecha = '2026-03-01 10:00:00' and c.motivo_cancelamiento is null);
+
+explain analyze select exists(select 1 from consultas c
+    where c.paciente_id = 4242 and c.fecha between '2026-03-01 07:00:00' and '2026-03-01 18:00:00');
+
+explain analyze select m.id from medicos m
+    where m.activo = 1 and m.especialidad = 'CARDIOLOGIA'
+    and m.id not in (select c.medico_id from consultas c
+        where c.fecha = '2026-03-01 10:00:00' and c.motivo_cancelamiento is null)
+    limit 1;
+
+-- ---------- V8 ----------
+alter table consultas add column medico_id_activo bigint
+    generated always as (if(motivo_cancelamiento is null, medico_id, null)) stored;
+create index ix_consultas_medico_fecha_motivo on consultas(medico_id, fecha, motivo_cancelamiento);
+create index ix_consultas_paciente_fecha on consultas(paciente_id, fecha);
+create unique index uk_consultas_medico_activo_fecha on consultas(medico_id_activo, fecha);
+
+analyze table consultas;
+
+-- ---------- despues de V8 ----------
+explain analyze select exists(select 1 from consultas c
+    where c.medico_id = 250 and c.fecha = '2026-03-01 10:00:00' and c.motivo_cancelamiento is null);
+
+explain analyze select exists(select 1 from consultas c
+    where c.paciente_id = 4242 and c.fecha between '2026-03-01 07:00:00' and '2026-03-01 18:00:00');
+
+explain analyze select m.id from medicos m
+    where m.activo = 1 and m.especialidad = 'CARDIOLOGIA'
+    and m.id not in (select c.medico_id from consultas c
+        where c.fecha = '2026-03-01 10:00:00' and c.motivo_cancelamiento is null)
+    limit 1;
+
+drop database vollmed_bench;
@@ -0,0 +1,55 @@
+package med.voll.api.benchmark;
+
+import med.voll.api.ApiApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.util.HashMap;
+import java.util.Map;
+
+//Levanta la aplicacion completa sobre H2 en memoria (modo MySQL), sin Flyway ni servidor web.
+//Hibernate crea las tablas de las entidades; las que solo se usan por JDBC salen de su migracion, con spring.sql.init
+//antes de que arranquen las tareas periodicas que las leen
+public final class EntornoBenchmark {
+
+    private EntornoBenchmark() {
+    }
+
+    //tambien la usa ServidorDeCarga, que arranca su propio contexto
+    static final String TABLAS_SIN_ENTIDAD = "classpath:db/migration/V13__create-table-eventos-outbox.sql,"
+            + "classpath:db/migration/V14__create-table-claves-idempotencia.sql";
+
+    private static final Map<String, String> PROPIEDADES = Map.ofEntries(
+            Map.entry("spring.datasource.url", "jdbc:h2:mem:vollmed_bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"),
+            Map.entry("spring.datasource.username", "sa"),
+            Map.entry("spring.datasource.password", ""),
+            Map.entry("spring.flyway.enabled", "false"),
+            Map.entry("spring.jpa.hibernate.ddl-auto", "create-drop"),
+            Map.entry("spring.sql.init.mode", "always"),
+            Map.entry("spring.sql.init.schema-locations", TABLAS_SIN_ENTIDAD),
+            Map.entry("spring.jpa.show-sql", "false"),
+            Map.entry("spring.jpa.properties.hibernate.format_sql", "false"),
+            Map.entry("spring.main.banner-mode", "off"),
+            Map.entry("logging.level.root", "WARN"),
+            Map.entry("logging.level.org.springframework.security", "WARN"),
+            Map.entry("logging.level.med.voll.api", "WARN"),
+            Map.entry("api.security.token.secret", "secreto-de-benchmark"),
+            //H2 no acepta el fetch size negativo del streaming de Connector/J
+            Map.entry("api.consultas.exportacion.fetch-size", "1000"),
+            //un solo usuario repite millones de solicitudes: sin limites salvo que el benchmark los pida
+            Map.entry("api.security.limites.rutas", ""));
+
+    public static ConfigurableApplicationContext iniciar() {
+        return iniciar(Map.of());
+    }
+
+    //propiedades: pisan los valores por defecto del entorno
+    public static ConfigurableApplicationContext iniciar(Map<String, String> propiedades) {
+        var valores = new HashMap<>(PROPIEDADES);
+        valores.putAll(propiedades);
+        var contexto = new SpringApplicationBuilder(ApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(valores.entrySet().stream().map(e -> "--" + e.getKey() + "=" + e.getValue()).toArray(String[]::new));
+        return contexto;
+    }
+}
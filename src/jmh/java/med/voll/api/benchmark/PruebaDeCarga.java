@@ -0,0 +1,144 @@
+package med.voll.api.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Prueba de carga de lazo cerrado contra una API levantada: cada cliente manda la siguiente peticion apenas recibe
+//la respuesta anterior. Por cada nivel de concurrencia informa peticiones por segundo, p50, p99, maximo y errores.
+//uso: PruebaDeCarga <url base> [escenario: detalle|listado|login] [segundos] [concurrencias separadas por coma]
+public class PruebaDeCarga {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        var base = args.length > 0 ? args[0] : "http://localhost:8080";
+        var escenario = args.length > 1 ? args[1] : "detalle";
+        var segundos = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        var concurrencias = Arrays.stream((args.length > 3 ? args[3] : "200,1000,5000").split(","))
+                .mapToInt(Integer::parseInt)
+                .toArray();
+
+        //los clientes son asincronos: pocos hilos alcanzan para miles de conexiones abiertas
+        var cliente = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors())))
+                .build();
+        var peticion = peticion(cliente, base, escenario);
+
+        System.out.printf("%-8s %-12s %10s %10s %10s %10s %8s%n", "clientes", "escenario", "req/s", "p50 ms", "p99 ms", "max ms", "errores");
+        for (var clientes : concurrencias) {
+            //calentamiento corto para abrir conexiones y compilar el camino caliente en el servidor
+            medir(cliente, peticion, clientes, Math.max(2, segundos / 5));
+            var resultado = medir(cliente, peticion, clientes, segundos);
+            System.out.printf("%-8d %-12s %10.0f %10.2f %10.2f %10.2f %8d%n", clientes, escenario,
+                    resultado.porSegundo(), resultado.percentil(50), resultado.percentil(99), resultado.percentil(100),
+                    resultado.errores());
+        }
+        System.exit(0);
+    }
+
+    private static HttpRequest peticion(HttpClient cliente, String base, String escenario) throws Exception {
+        var login = HttpRequest.newBuilder(URI.create(base + "/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(JSON.writeValueAsString(
+                        new Credenciales(SembradorDeDatos.LOGIN, SembradorDeDatos.CLAVE))))
+                .build();
+        if (escenario.equals("login")) {
+            return login;
+        }
+        var respuesta = cliente.send(login, HttpResponse.BodyHandlers.ofString());
+        if (respuesta.statusCode() != 200) {
+            throw new IllegalStateException("Login fallido: " + respuesta.statusCode() + " " + respuesta.body());
+        }
+        var token = JSON.readTree(respuesta.body()).get("jwTtoken").asText();
+        var ruta = switch (escenario) {
+            case "detalle" -> "/medicos/1";
+            case "listado" -> "/medicos?size=10";
+            default -> throw new IllegalArgumentException("Escenario desconocido: " + escenario);
+        };
+        return HttpRequest.newBuilder(URI.create(base + ruta))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+    }
+
+    private static Resultado medir(HttpClient cliente, HttpRequest peticion, int clientes, int segundos) throws InterruptedException {
+        var latencias = new Latencias();
+        var errores = new AtomicLong();
+        var fin = System.nanoTime() + TimeUnit.SECONDS.toNanos(segundos);
+        var terminados = new CountDownLatch(clientes);
+        var inicio = System.nanoTime();
+        for (var i = 0; i < clientes; i++) {
+            enviar(cliente, peticion, fin, latencias, errores, terminados);
+        }
+        terminados.await(segundos + 60L, TimeUnit.SECONDS);
+        var transcurrido = (System.nanoTime() - inicio) / 1e9;
+        return new Resultado(latencias.ordenadas(), errores.get(), transcurrido);
+    }
+
+    private static void enviar(HttpClient cliente, HttpRequest peticion, long fin, Latencias latencias,
+                               AtomicLong errores, CountDownLatch terminados) {
+        var enviado = System.nanoTime();
+        cliente.sendAsync(peticion, HttpResponse.BodyHandlers.discarding()).whenComplete((respuesta, error) -> {
+            var recibido = System.nanoTime();
+            if (error != null || respuesta.statusCode() >= 400) {
+                errores.incrementAndGet();
+            } else {
+                latencias.agregar(recibido - enviado);
+            }
+            if (recibido < fin) {
+                enviar(cliente, peticion, fin, latencias, errores, terminados);
+            } else {
+                terminados.countDown();
+            }
+        });
+    }
+
+    private record Credenciales(String login, String clave) {
+    }
+
+    private record Resultado(long[] latencias, long errores, double segundos) {
+
+        double porSegundo() {
+            return latencias.length / segundos;
+        }
+
+        double percentil(int percentil) {
+            if (latencias.length == 0) {
+                return Double.NaN;
+            }
+            var indice = (int) Math.ceil(percentil / 100.0 * latencias.length) - 1;
+            return latencias[Math.max(0, indice)] / 1e6;
+        }
+    }
+
+    private static class Latencias {
+
+        private long[] valores = new long[1 << 16];
+        private int total;
+
+        synchronized void agregar(long nanos) {
+            if (total == valores.length) {
+                valores = Arrays.copyOf(valores, total * 2);
+            }
+            valores[total++] = nanos;
+        }
+
+        synchronized long[] ordenadas() {
+            var copia = Arrays.copyOf(valores, total);
+            Arrays.sort(copia);
+            return copia;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package med.voll.api.benchmark;
+
+import med.voll.api.domain.ValidacionException;
+import med.voll.api.domain.consulta.DatosReservaConsulta;
+import med.voll.api.domain.consulta.ReservaDeConsultas;
+import med.voll.api.domain.medico.Especialidad;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Prueba de estres de la reserva: miles de reservas en paralelo sobre pocos horarios, la mitad con medico elegido
+//y la mitad por especialidad. Al final cuenta en la BD los horarios de medico con mas de una consulta activa,
+//que deben ser cero, e informa reservas por segundo. Sale con codigo 1 si encuentra una reserva duplicada.
+//La garantia de cero duplicados la cubre ReservaDeConsultasConcurrenteTest en mvn test; esta version es para medir
+//uso: PruebaDeReservasConcurrentes [reservas] [hilos] [horarios]
+public class PruebaDeReservasConcurrentes {
+
+    private static final int MEDICOS = 200;
+
+    public static void main(String[] args) throws Exception {
+        var reservas = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        var hilos = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        var horarios = args.length > 2 ? Integer.parseInt(args[2]) : 12;
+
+        //devtools relanzaria main en otro hilo con los argumentos de Spring
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        //un paciente distinto por reserva para que solo compitan por el horario del medico
+        var contexto = EntornoBenchmark.iniciar();
+        SembradorDeDatos.sembrar(contexto, MEDICOS, reservas + 1, 0);
+        var reserva = contexto.getBean(ReservaDeConsultas.class);
+        var transaccion = new TransactionTemplate(contexto.getBean(PlatformTransactionManager.class));
+        var jdbc = contexto.getBean(JdbcTemplate.class);
+
+        //horarios de una hora a partir del lunes libre: varias reservas por medico y horario
+        var primerHorario = SembradorDeDatos.fechaLibre().withHour(7);
+        var especialidades = Especialidad.values();
+        var aceptadas = new AtomicLong();
+        var rechazadas = new AtomicLong();
+        var errores = new AtomicLong();
+        var ejecutor = Executors.newFixedThreadPool(hilos);
+        var listos = new CountDownLatch(1);
+        var terminadas = new CountDownLatch(reservas);
+        for (var i = 0; i < reservas; i++) {
+            var idPaciente = (long) i + 2;
+            ejecutor.execute(() -> {
+                try {
+                    listos.await();
+                    var azar = ThreadLocalRandom.current();
+                    var fecha = primerHorario.plusHours(azar.nextInt(horarios));
+                    var datos = azar.nextBoolean()
+                            ? new DatosReservaConsulta((long) azar.nextInt(MEDICOS) + 1, idPaciente, fecha, null)
+                            : new DatosReservaConsulta(null, idPaciente, fecha, especialidades[azar.nextInt(especialidades.length)]);
+                    transaccion.executeWithoutResult(estado -> reserva.reservar(datos));
+                    aceptadas.incrementAndGet();
+                } catch (ValidacionException e) {
+                    rechazadas.incrementAndGet();
+                } catch (Exception e) {
+                    errores.incrementAndGet();
+                } finally {
+                    terminadas.countDown();
+                }
+            });
+        }
+
+        var inicio = System.nanoTime();
+        listos.countDown();
+        terminadas.await();
+        var segundos = (System.nanoTime() - inicio) / 1e9;
+        ejecutor.shutdown();
+
+        var duplicados = jdbc.queryForObject("""
+                select count(*) from (
+                    select medico_id, fecha from consultas
+                    where motivo_cancelamiento is null
+                    group by medico_id, fecha
+                    having count(*) > 1) d
+                """, Long.class);
+        var guardadas = jdbc.queryForObject("select count(*) from consultas", Long.class);
+
+        System.out.printf("%-10s %8s %10s %10s %8s %10s %10s %12s%n", "reservas", "hilos", "aceptadas", "rechazadas",
+                "errores", "guardadas", "duplicados", "reservas/s");
+        System.out.printf("%-10d %8d %10d %10d %8d %10d %10d %12.0f%n", reservas, hilos, aceptadas.get(),
+                rechazadas.get(), errores.get(), guardadas, duplicados, reservas / segundos);
+        contexto.close();
+        System.exit(duplicados == 0 && guardadas == aceptadas.get() ? 0 : 1);
+    }
+}
@@ -0,0 +1,87 @@
+package med.voll.api.benchmark;
+
+import jakarta.persistence.EntityManagerFactory;
+import med.voll.api.domain.consulta.AsignadorDeMedicos;
+import med.voll.api.domain.consulta.ocupacion.OcupacionDeAgendas;
+import med.voll.api.domain.medico.Especialidad;
+import org.hibernate.SessionFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+
+//Carga medicos, pacientes, consultas y un usuario con JDBC por lotes y recarga los indices en memoria.
+//Las consultas empiezan la semana siguiente a fechaLibre(), por lo que ese horario queda libre para reservar
+public final class SembradorDeDatos {
+
+    public static final String LOGIN = "usuario.benchmark";
+    public static final String CLAVE = "123456";
+    private static final int LOTE = 5_000;
+
+    private SembradorDeDatos() {
+    }
+
+    public static void sembrar(ConfigurableApplicationContext contexto, int medicos, int pacientes, int consultas) {
+        var jdbc = contexto.getBean(JdbcTemplate.class);
+        var especialidades = Especialidad.values();
+
+        insertar(jdbc, """
+                insert into medicos(nombre, email, telefono, documento, activo, especialidad, calle, numero, complemento, distrito, ciudad)
+                values (?, ?, '6145489789', ?, true, ?, 'calle x', '123', '1', 'distrito y', 'ciudad z')
+                """, medicos, i -> new Object[]{"Medico " + i, "medico" + i + "@voll.med", String.valueOf(100000 + i),
+                especialidades[i % especialidades.length].name()});
+
+        insertar(jdbc, """
+                insert into pacientes(nombre, email, telefono, documento, activo, calle, numero, complemento, distrito, ciudad)
+                values (?, ?, '1234564', ?, true, 'calle x', '123', '1', 'distrito y', 'ciudad z')
+                """, pacientes, i -> new Object[]{"Paciente " + i, "paciente" + i + "@voll.med", String.valueOf(1000000 + i)});
+
+        //una consulta por medico y hora de atencion, lunes a sabado de 07 a 18; el paciente 1 queda sin consultas
+        var inicio = fechaLibre().toLocalDate().plusWeeks(1);
+        insertar(jdbc, "insert into consultas(medico_id, paciente_id, fecha) values (?, ?, ?)", consultas, i -> {
+            var hora = i / medicos;
+            var dia = hora / 12;
+            var fecha = inicio.plusWeeks(dia / 6).plusDays(dia % 6).atTime(7 + hora % 12, 0);
+            return new Object[]{(long) (i % medicos) + 1, (long) (i % (pacientes - 1)) + 2, Timestamp.valueOf(fecha)};
+        });
+
+        var encoder = contexto.getBean(PasswordEncoder.class);
+        jdbc.update("insert into usuarios(login, clave) values (?, ?)", LOGIN, encoder.encode(CLAVE));
+
+        //los inserts por JDBC no pasan por Hibernate: se vacia el cache de segundo nivel y de queries
+        contexto.getBean(EntityManagerFactory.class).getCache().evictAll();
+        contexto.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getCache().evictQueryRegions();
+        contexto.getBean(OcupacionDeAgendas.class).cargar();
+        contexto.getBean(AsignadorDeMedicos.class).cargar();
+    }
+
+    //lunes de la semana proxima a las 10, sin consultas sembradas
+    public static LocalDateTime fechaLibre() {
+        return LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY)).atTime(10, 0);
+    }
+
+    private static void insertar(JdbcTemplate jdbc, String sql, int total, Fila fila) {
+        var lote = new ArrayList<Object[]>(LOTE);
+        for (var i = 0; i < total; i++) {
+            lote.add(fila.valores(i));
+            if (lote.size() == LOTE) {
+                jdbc.batchUpdate(sql, lote);
+                lote.clear();
+            }
+        }
+        if (!lote.isEmpty()) {
+            jdbc.batchUpdate(sql, List.copyOf(lote));
+        }
+    }
+
+    private interface Fila {
+        Object[] valores(int indice);
+    }
+}
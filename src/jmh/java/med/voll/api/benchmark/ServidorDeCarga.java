@@ -0,0 +1,47 @@
+package med.voll.api.benchmark;
+
+import med.voll.api.ApiApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+import java.util.Map;
+
+//Levanta la API con servidor web sobre H2 en memoria y datos sembrados, para PruebaDeCarga.
+//Los argumentos van a Spring y pisan estos valores (ej. --server.port=8081 --spring.profiles.active=hilos-virtuales)
+public final class ServidorDeCarga {
+
+    private static final Map<String, String> PROPIEDADES = Map.ofEntries(
+            Map.entry("spring.datasource.url", "jdbc:h2:mem:vollmed_carga;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"),
+            Map.entry("spring.datasource.username", "sa"),
+            Map.entry("spring.datasource.password", ""),
+            Map.entry("spring.flyway.enabled", "false"),
+            Map.entry("spring.jpa.hibernate.ddl-auto", "create-drop"),
+            Map.entry("spring.sql.init.mode", "always"),
+            Map.entry("spring.sql.init.schema-locations", EntornoBenchmark.TABLAS_SIN_ENTIDAD),
+            Map.entry("spring.jpa.show-sql", "false"),
+            Map.entry("spring.jpa.properties.hibernate.format_sql", "false"),
+            Map.entry("spring.main.banner-mode", "off"),
+            Map.entry("spring.devtools.restart.enabled", "false"),
+            Map.entry("logging.level.root", "WARN"),
+            Map.entry("logging.level.org.springframework.security", "WARN"),
+            Map.entry("logging.level.med.voll.api", "WARN"),
+            Map.entry("api.security.token.secret", "secreto-de-benchmark"),
+            //H2 no acepta el fetch size negativo del streaming de Connector/J
+            Map.entry("api.consultas.exportacion.fetch-size", "1000"),
+            //la carga sale de pocos usuarios; --api.security.limites.rutas=... para probar el limitador
+            Map.entry("api.security.limites.rutas", ""));
+
+    private ServidorDeCarga() {
+    }
+
+    public static void main(String[] args) {
+        //como propiedades de sistema quedan por encima de application.properties y por debajo de la linea de comandos
+        PROPIEDADES.forEach((clave, valor) -> {
+            if (System.getProperty(clave) == null) {
+                System.setProperty(clave, valor);
+            }
+        });
+        var contexto = new SpringApplicationBuilder(ApiApplication.class).run(args);
+        SembradorDeDatos.sembrar(contexto, 200, 10_000, 100_000);
+        System.out.println("ServidorDeCarga listo");
+    }
+}
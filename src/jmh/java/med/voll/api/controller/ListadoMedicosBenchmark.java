@@ -0,0 +1,59 @@
+package med.voll.api.controller;
+
+import med.voll.api.benchmark.EntornoBenchmark;
+import med.voll.api.benchmark.SembradorDeDatos;
+import med.voll.api.domain.medico.DatosListadoMedico;
+import med.voll.api.domain.medico.MedicoRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.concurrent.TimeUnit;
+
+//Pagina de GET /medicos: consulta, conteo y mapeo a DatosListadoMedico
+//listadoMedicos usa la proyeccion del controller; listadoMedicosEntidades es el camino anterior, por entidades.
+//Para comparar la memoria asignada por pagina: -Djmh.args="ListadoMedicosBenchmark -prof gc" (gc.alloc.rate.norm)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListadoMedicosBenchmark {
+
+    @Param("10000")
+    private int medicos;
+
+    @Param({"0", "500"})
+    private int pagina;
+
+    @Param({"10", "100"})
+    private int tamanio;
+
+    private ConfigurableApplicationContext contexto;
+    private MedicoController controller;
+    private MedicoRepository repository;
+
+    @Setup
+    public void preparar() {
+        contexto = EntornoBenchmark.iniciar();
+        SembradorDeDatos.sembrar(contexto, medicos, 2, 0);
+        controller = contexto.getBean(MedicoController.class);
+        repository = contexto.getBean(MedicoRepository.class);
+    }
+
+    @TearDown
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Object listadoMedicos() {
+        return controller.listadoMedicos(PageRequest.of(pagina, tamanio));
+    }
+
+    @Benchmark
+    public Object listadoMedicosEntidades() {
+        return repository.findByActivoTrue(PageRequest.of(pagina, tamanio)).map(DatosListadoMedico::new);
+    }
+}
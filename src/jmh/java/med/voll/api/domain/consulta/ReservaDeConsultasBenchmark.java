@@ -0,0 +1,70 @@
+package med.voll.api.domain.consulta;
+
+import med.voll.api.benchmark.EntornoBenchmark;
+import med.voll.api.benchmark.SembradorDeDatos;
+import med.voll.api.domain.medico.Especialidad;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+//Cada reserva se revierte al final, asi el horario sigue libre y el indice en memoria no cambia entre invocaciones
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReservaDeConsultasBenchmark {
+
+    @Param("200")
+    private int medicos;
+
+    @Param("10000")
+    private int pacientes;
+
+    @Param("100000")
+    private int consultas;
+
+    private ConfigurableApplicationContext contexto;
+    private ReservaDeConsultas reserva;
+    private TransactionTemplate transaccion;
+    private DatosReservaConsulta conMedico;
+    private DatosReservaConsulta porEspecialidad;
+
+    @Setup
+    public void preparar() {
+        contexto = EntornoBenchmark.iniciar();
+        SembradorDeDatos.sembrar(contexto, medicos, pacientes, consultas);
+        reserva = contexto.getBean(ReservaDeConsultas.class);
+        transaccion = new TransactionTemplate(contexto.getBean(PlatformTransactionManager.class));
+        var fecha = SembradorDeDatos.fechaLibre();
+        conMedico = new DatosReservaConsulta(1L, 1L, fecha, null);
+        porEspecialidad = new DatosReservaConsulta(null, 1L, fecha, Especialidad.CARDIOLOGIA);
+    }
+
+    @TearDown
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public DatosDetalleConsulta reservarConMedico() {
+        return reservarYRevertir(conMedico);
+    }
+
+    @Benchmark
+    public DatosDetalleConsulta reservarPorEspecialidad() {
+        return reservarYRevertir(porEspecialidad);
+    }
+
+    private DatosDetalleConsulta reservarYRevertir(DatosReservaConsulta datos) {
+        return transaccion.execute(estado -> {
+            var detalle = reserva.reservar(datos);
+            estado.setRollbackOnly();
+            return detalle;
+        });
+    }
+}
@@ -0,0 +1,58 @@
+package med.voll.api.domain.consulta.disponibilidad;
+
+import med.voll.api.benchmark.EntornoBenchmark;
+import med.voll.api.benchmark.SembradorDeDatos;
+import med.voll.api.domain.medico.Especialidad;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+//GET /disponibilidad de una semana para todos los medicos de una especialidad, resuelto con el bitmap en memoria.
+//semana 0 no tiene consultas sembradas; semana 1 tiene ocupadas la mayoria de las horas.
+//proximaCardiologia busca el primer horario libre de la especialidad desde el inicio de esa semana
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BuscadorDeDisponibilidadBenchmark {
+
+    @Param({"200", "4000"})
+    private int medicos;
+
+    @Param("100000")
+    private int consultas;
+
+    @Param({"0", "1"})
+    private int semana;
+
+    private ConfigurableApplicationContext contexto;
+    private BuscadorDeDisponibilidad buscador;
+    private LocalDate desde;
+
+    @Setup
+    public void preparar() {
+        contexto = EntornoBenchmark.iniciar();
+        SembradorDeDatos.sembrar(contexto, medicos, 2, consultas);
+        buscador = contexto.getBean(BuscadorDeDisponibilidad.class);
+        desde = SembradorDeDatos.fechaLibre().toLocalDate().plusWeeks(semana);
+    }
+
+    @TearDown
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Object semanaCardiologia() {
+        return buscador.buscar(Especialidad.CARDIOLOGIA, desde, desde.plusDays(6));
+    }
+
+    @Benchmark
+    public Object proximaCardiologia() {
+        return buscador.buscarProximo(Especialidad.CARDIOLOGIA, desde);
+    }
+}
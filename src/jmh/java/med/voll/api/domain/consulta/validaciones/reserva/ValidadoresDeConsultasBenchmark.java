@@ -0,0 +1,69 @@
+package med.voll.api.domain.consulta.validaciones.reserva;
+
+import med.voll.api.benchmark.EntornoBenchmark;
+import med.voll.api.benchmark.SembradorDeDatos;
+import med.voll.api.domain.consulta.DatosReservaConsulta;
+import med.voll.api.domain.consulta.ocupacion.OcupacionDeAgendas;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+//Mide cada ValidadorDeConsultas por separado, leyendo de la BD y leyendo del contexto precargado
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidadoresDeConsultasBenchmark {
+
+    @Param({"ValidadorCalendarioDeAtencion", "ValidadorMedicoActivo",
+            "ValidadorMedicoConOtraConsultaEnElMismoHorario", "ValidadorPacienteActivo",
+            "ValidadorPacienteSinOtraConsultaEnElMismoDia"})
+    private String validador;
+
+    @Param("200")
+    private int medicos;
+
+    @Param("10000")
+    private int pacientes;
+
+    @Param("100000")
+    private int consultas;
+
+    private ConfigurableApplicationContext contexto;
+    private ValidadorDeConsultas instancia;
+    private DatosReservaConsulta datos;
+    private ContextoReserva contextoReserva;
+
+    @Setup
+    public void preparar() {
+        contexto = EntornoBenchmark.iniciar();
+        SembradorDeDatos.sembrar(contexto, medicos, pacientes, consultas);
+        instancia = contexto.getBeansOfType(ValidadorDeConsultas.class).values().stream()
+                .filter(v -> v.getClass().getSimpleName().equals(validador))
+                .findFirst()
+                .orElseThrow();
+        datos = new DatosReservaConsulta(1L, 1L, SembradorDeDatos.fechaLibre(), null);
+        var ocupacion = contexto.getBean(OcupacionDeAgendas.class);
+        contextoReserva = new ContextoReserva(true, true,
+                ocupacion.medicoOcupado(datos.idMedico(), datos.fecha()),
+                ocupacion.pacienteConConsultaEnElDia(datos.idPaciente(), datos.fecha().toLocalDate()));
+    }
+
+    @TearDown
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public void validar() {
+        instancia.validar(datos);
+    }
+
+    @Benchmark
+    public void validarConContexto() {
+        instancia.validar(datos, contextoReserva);
+    }
+}
@@ -0,0 +1,69 @@
+package med.voll.api.infra.security;
+
+import jakarta.servlet.FilterChain;
+import med.voll.api.benchmark.EntornoBenchmark;
+import med.voll.api.benchmark.SembradorDeDatos;
+import med.voll.api.domain.usuarios.Usuario;
+import med.voll.api.domain.usuarios.UsuarioRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+//Una peticion autenticada por invocacion, con el token ya en cache y forzando verificacion + findByLogin.
+//limites vacio = sin limitador; con una regla que nunca rechaza se mide el costo de la cubeta en cada peticion
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SecurityFilterBenchmark {
+
+    @Param({"", "/**=1000000000/PT1S"})
+    private String limites;
+
+    private ConfigurableApplicationContext contexto;
+    private SecurityFilter filtro;
+    private CacheDeTokens cacheDeTokens;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private FilterChain cadena;
+    private String token;
+
+    @Setup
+    public void preparar() {
+        contexto = EntornoBenchmark.iniciar(Map.of("api.security.limites.rutas", limites));
+        SembradorDeDatos.sembrar(contexto, 1, 2, 0);
+        filtro = contexto.getBean(SecurityFilter.class);
+        cacheDeTokens = contexto.getBean(CacheDeTokens.class);
+        var usuario = (Usuario) contexto.getBean(UsuarioRepository.class).findByLogin(SembradorDeDatos.LOGIN);
+        token = contexto.getBean(TokenService.class).generarToken(usuario);
+        request = new MockHttpServletRequest("GET", "/medicos");
+        request.addHeader("Authorization", "Bearer " + token);
+        response = new MockHttpServletResponse();
+        cadena = (req, res) -> { };
+    }
+
+    @TearDown
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public void tokenEnCache() throws Exception {
+        filtro.doFilterInternal(request, response, cadena);
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public void tokenSinCache() throws Exception {
+        cacheDeTokens.invalidar(token);
+        filtro.doFilterInternal(request, response, cadena);
+        SecurityContextHolder.clearContext();
+    }
+}
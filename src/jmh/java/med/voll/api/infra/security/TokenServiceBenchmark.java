@@ -0,0 +1,67 @@
+package med.voll.api.infra.security;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import med.voll.api.domain.usuarios.Usuario;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+
+//Compara la firma/verificacion construyendo el algoritmo en cada llamada (version anterior) con TokenService
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenServiceBenchmark {
+
+    private static final String SECRETO = "secreto-de-benchmark";
+
+    private TokenService tokenService;
+    private Usuario usuario;
+    private String token;
+
+    @Setup
+    public void preparar() {
+        tokenService = new TokenService();
+        ReflectionTestUtils.setField(tokenService, "secret", SECRETO);
+        ReflectionTestUtils.setField(tokenService, "kid", "principal");
+        ReflectionTestUtils.setField(tokenService, "archivoClaves", "");
+        ReflectionTestUtils.setField(tokenService, "cacheDeTokens", new CacheDeTokens(100));
+        tokenService.iniciar();
+        usuario = new Usuario(1L, "usuario.benchmark", "clave");
+        token = tokenService.generarToken(usuario);
+    }
+
+    @Benchmark
+    public String generarTokenAlgoritmoPorLlamada() {
+        return JWT.create()
+                .withIssuer("API Voll.med")
+                .withSubject(usuario.getLogin())
+                .withExpiresAt(Instant.now().plus(2, ChronoUnit.HOURS))
+                .sign(Algorithm.HMAC256(SECRETO));
+    }
+
+    @Benchmark
+    public String generarToken() {
+        return tokenService.generarToken(usuario);
+    }
+
+    @Benchmark
+    public String getSubjectVerificadorPorLlamada() {
+        return JWT.require(Algorithm.HMAC256(SECRETO))
+                .withIssuer("API Voll.med")
+                .build()
+                .verify(token)
+                .getSubject();
+    }
+
+    @Benchmark
+    public String getSubject() {
+        return tokenService.getSubject(token);
+    }
+}
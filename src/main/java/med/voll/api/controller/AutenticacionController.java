@@ -1,19 +1,27 @@
 package med.voll.api.controller;
 
+import com.auth0.jwt.interfaces.DecodedJWT;
 import jakarta.validation.Valid;
 import med.voll.api.domain.usuarios.DatosAutenticacionUsuario;
 import med.voll.api.domain.usuarios.Usuario;
 import med.voll.api.domain.usuarios.UsuarioRepository;
 import med.voll.api.infra.security.DatosJWTToken;
+import med.voll.api.infra.security.DatosRefreshToken;
 import med.voll.api.infra.security.TokenService;
+import med.voll.api.infra.security.TokensRevocados;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -21,11 +29,8 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/login")
 public class AutenticacionController {
 
-    @Autowired // <--- AGREGA ESTO
-    private UsuarioRepository repository;
-
-    @Autowired
-    private PasswordEncoder passwordEncoder; // Importa org.springframework.security.crypto.password.PasswordEncoder
+    //eventos con pares clave=valor y nunca la clave ni el token; con el nivel apagado at*() devuelve un builder vacio
+    private static final Logger log = LoggerFactory.getLogger(AutenticacionController.class);
 
     @Autowired
     private AuthenticationManager authenticationManager;
@@ -33,31 +38,74 @@ public class AutenticacionController {
     @Autowired
     private TokenService tokenService;
 
+    @Autowired
+    private TokensRevocados tokensRevocados;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
     @PostMapping
     public ResponseEntity autenticarUsuario(@RequestBody @Valid DatosAutenticacionUsuario datosAutenticacionUsuario) {
-//------- VERIFICACION error 403 ------------
-        // ESTO NOS DIRÁ QUÉ ESTÁ PASANDO REALMENTE
-        System.out.println(">>> Intentando login con: " + datosAutenticacionUsuario.login());
-        System.out.println(">>> Clave enviada (raw): " + datosAutenticacionUsuario.clave());
-
-        // Verifiquemos si el usuario existe y qué clave tiene en la DB según Hibernate
-        var usuarioEnDB = repository.findByLogin(datosAutenticacionUsuario.login());
-        if (usuarioEnDB != null) {
-            System.out.println(">>> Usuario encontrado en DB");
-            System.out.println(">>> Hash en DB: " + usuarioEnDB.getPassword());
-            System.out.println("NUEVO HASH GENERADO: " + passwordEncoder.encode("123456"));
-            // Comparación manual rápida para probar el bean
-            boolean coinciden = passwordEncoder.matches(datosAutenticacionUsuario.clave(), usuarioEnDB.getPassword());
-            System.out.println(">>> ¿Coinciden según BCrypt?: " + coinciden);
-        } else {
-            System.out.println(">>> USUARIO NO ENCONTRADO EN DB");
-        }
-//---------------FIN error 403--------------------
         Authentication authToken = new UsernamePasswordAuthenticationToken(datosAutenticacionUsuario.login(),
                 datosAutenticacionUsuario.clave());
-        var usuarioAutenticado = authenticationManager.authenticate(authToken);
-        var JWTtoken = tokenService.generarToken((Usuario) usuarioAutenticado.getPrincipal());
-        return ResponseEntity.ok(new DatosJWTToken(JWTtoken));
+        Authentication usuarioAutenticado;
+        try {
+            usuarioAutenticado = authenticationManager.authenticate(authToken);
+        } catch (AuthenticationException e) {
+            log.atInfo().setMessage("login rechazado")
+                    .addKeyValue("usuario", datosAutenticacionUsuario.login())
+                    .addKeyValue("motivo", e.getClass().getSimpleName())
+                    .log();
+            throw e;
+        }
+        log.atDebug().setMessage("login").addKeyValue("usuario", datosAutenticacionUsuario.login()).log();
+        return ResponseEntity.ok(emitirTokens((Usuario) usuarioAutenticado.getPrincipal()));
+    }
+
+    //nuevo par de tokens sin BCrypt; el refresh token usado queda revocado y no se puede volver a usar
+    @PostMapping("/refresh")
+    public ResponseEntity renovarToken(@RequestBody @Valid DatosRefreshToken datos) {
+        var refresh = verificarRefresh(datos.refreshToken());
+        if (!tokensRevocados.revocarSiNoEsta(refresh.getId(), refresh.getExpiresAtAsInstant())) {
+            log.atWarn().setMessage("refresh token reutilizado").addKeyValue("usuario", refresh.getSubject()).log();
+            throw new BadCredentialsException("Refresh token revocado");
+        }
+        var usuario = usuarioRepository.findByLogin(refresh.getSubject());
+        if (usuario == null) {
+            throw new BadCredentialsException("Usuario inexistente");
+        }
+        return ResponseEntity.ok(emitirTokens((Usuario) usuario));
+    }
+
+    //revoca el token de acceso de la peticion y, si se envia, el refresh token
+    @PostMapping("/logout")
+    public ResponseEntity cerrarSesion(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization,
+                                       @RequestBody(required = false) DatosRefreshToken datos) {
+        var acceso = tokenService.verificar(authorization.replace("Bearer ", ""));
+        tokensRevocados.revocar(acceso.getId(), acceso.getExpiresAtAsInstant());
+        if (datos != null && datos.refreshToken() != null) {
+            var refresh = verificarRefresh(datos.refreshToken());
+            if (refresh.getSubject().equals(acceso.getSubject())) {
+                tokensRevocados.revocar(refresh.getId(), refresh.getExpiresAtAsInstant());
+            }
+        }
+        return ResponseEntity.noContent().build();
     }
 
+    private DatosJWTToken emitirTokens(Usuario usuario) {
+        return new DatosJWTToken(tokenService.generarToken(usuario), tokenService.generarRefreshToken(usuario));
+    }
+
+    private DecodedJWT verificarRefresh(String refreshToken) {
+        DecodedJWT refresh;
+        try {
+            refresh = tokenService.verificar(refreshToken);
+        } catch (RuntimeException e) {
+            throw new BadCredentialsException("Refresh token invalido o expirado");
+        }
+        if (!tokenService.esRefreshToken(refresh) || refresh.getId() == null) {
+            throw new BadCredentialsException("Refresh token invalido o expirado");
+        }
+        return refresh;
+    }
 }
@@ -2,17 +2,36 @@ package med.voll.api.controller;
 
 //import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import med.voll.api.domain.consulta.DatosCancelamientoConsulta;
 import med.voll.api.domain.consulta.DatosReservaConsulta;
+import med.voll.api.domain.consulta.DatosResultadoReserva;
 import med.voll.api.domain.consulta.ReservaDeConsultas;
+import med.voll.api.domain.consulta.ReservaDeConsultasEnLote;
+import med.voll.api.domain.consulta.exportacion.ExportadorDeConsultas;
+import med.voll.api.domain.consulta.exportacion.FormatoExportacion;
+import med.voll.api.domain.consulta.idempotencia.ReservaIdempotente;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+
 @RestController
 @RequestMapping("consultas")
 @SecurityRequirement(name = "bearer-key")
@@ -21,11 +40,51 @@ public class ConsultaController {
     @Autowired
     private ReservaDeConsultas reserva;
 
+    @Autowired
+    private ReservaIdempotente reservaIdempotente;
+
+    @Autowired
+    private ReservaDeConsultasEnLote reservaEnLote;
+
+    @Autowired
+    private ExportadorDeConsultas exportador;
+
+    //con Idempotency-Key un reintento devuelve la misma consulta; la transaccion la abre el servicio solo si hace falta
     @PostMapping
-    @Transactional
-    public ResponseEntity reservar(@RequestBody @Valid DatosReservaConsulta datos) {
+    public ResponseEntity reservar(@RequestBody @Valid DatosReservaConsulta datos,
+                                   @RequestHeader(name = "Idempotency-Key", required = false) String claveIdempotencia,
+                                   @AuthenticationPrincipal UserDetails usuario) {
 
-        var detalleConsulta = reserva.reservar(datos);
+        var detalleConsulta = reservaIdempotente.reservar(usuario.getUsername(), claveIdempotencia, datos);
         return ResponseEntity.ok(detalleConsulta);
     }
-}
\ No newline at end of file
+
+    //204 si se cancelo; 404 si no existe; 400 si ya estaba cancelada o faltan menos de 24 horas
+    @DeleteMapping
+    @Transactional
+    public ResponseEntity cancelar(@RequestBody @Valid DatosCancelamientoConsulta datos) {
+        reserva.cancelar(datos);
+        return ResponseEntity.noContent().build();
+    }
+
+    //cada item se valida por separado; la respuesta trae el resultado de cada uno en el mismo orden. Un horario que
+    //otra instancia reservo entre la validacion y el insert no falla solo ese item: el lote completo responde 409
+    @PostMapping("/lote")
+    public ResponseEntity<List<DatosResultadoReserva>> reservarLote(@RequestBody List<DatosReservaConsulta> datos) {
+        return ResponseEntity.ok(reservaEnLote.reservar(datos));
+    }
+
+    // GET /consultas/export?desde=2025-06-01&hasta=2025-06-30&formato=CSV (fechas inclusive, NDJSON por defecto)
+    @GetMapping("/export")
+    public void exportar(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+                         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+                         @RequestParam(defaultValue = "NDJSON") FormatoExportacion formato,
+                         HttpServletResponse response) throws IOException {
+        //se valida antes de fijar las cabeceras para que el error salga como una respuesta 400 normal
+        exportador.validarRango(desde, hasta);
+        response.setContentType(formato.getTipoContenido());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"consultas-" + desde + "-" + hasta + "." + formato.getExtension() + "\"");
+        exportador.exportar(desde, hasta, formato, response.getOutputStream());
+    }
+}
@@ -0,0 +1,42 @@
+package med.voll.api.controller;
+
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import med.voll.api.domain.consulta.disponibilidad.BuscadorDeDisponibilidad;
+import med.voll.api.domain.consulta.disponibilidad.DatosDisponibilidadMedico;
+import med.voll.api.domain.consulta.disponibilidad.DatosProximoHorario;
+import med.voll.api.domain.medico.Especialidad;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("disponibilidad")
+@SecurityRequirement(name = "bearer-key")
+public class DisponibilidadController {
+
+    @Autowired
+    private BuscadorDeDisponibilidad buscador;
+
+    // GET /disponibilidad?especialidad=CARDIOLOGIA&desde=2025-06-02&hasta=2025-06-07 (fechas inclusive)
+    @GetMapping
+    public ResponseEntity<List<DatosDisponibilidadMedico>> buscar(@RequestParam Especialidad especialidad,
+                                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+                                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        return ResponseEntity.ok(buscador.buscar(especialidad, desde, hasta));
+    }
+
+    // GET /disponibilidad/proxima?especialidad=CARDIOLOGIA[&desde=2025-06-02]: primer horario libre de cualquier medico
+    @GetMapping("proxima")
+    public ResponseEntity<DatosProximoHorario> buscarProxima(@RequestParam Especialidad especialidad,
+                                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde) {
+        return buscador.buscarProximo(especialidad, desde).map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -1,19 +1,28 @@
 package med.voll.api.controller;
 
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
-import jakarta.transaction.Transactional;
+import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
+import med.voll.api.domain.consulta.AsignadorDeMedicos;
+import med.voll.api.domain.consulta.calendario.CalendarioDeAtencion;
+import med.voll.api.domain.consulta.calendario.DatosJornada;
+import med.voll.api.domain.consulta.calendario.DatosJornadasMedico;
 import med.voll.api.domain.direccion.DatosDireccion;
 import med.voll.api.domain.medico.*;
+import med.voll.api.infra.paginacion.CursorNombreId;
+import med.voll.api.infra.paginacion.DatosPaginaCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.net.URI;
+import java.util.List;
 
 @RestController
 @RequestMapping("/medicos")
@@ -23,10 +32,17 @@ public class MedicoController {
     @Autowired
     private MedicoRepository medicoRepository;
 
+    @Autowired
+    private AsignadorDeMedicos asignadorDeMedicos;
+
+    @Autowired
+    private CalendarioDeAtencion calendarioDeAtencion;
+
     @PostMapping
     public ResponseEntity<DatosRespuestaMedico> registrarMedico(@RequestBody @Valid DatosRegistroMedico datosRegistroMedico,
                                                                 UriComponentsBuilder uriComponentsBuilder) {
         Medico medico = medicoRepository.save(new Medico(datosRegistroMedico));
+        asignadorDeMedicos.registrar(medico);
         DatosRespuestaMedico datosRespuestaMedico = new DatosRespuestaMedico(medico.getId(), medico.getNombre(), medico.getEmail(),
                 medico.getTelefono(), medico.getEspecialidad().toString(),
                 new DatosDireccion(medico.getDireccion().getCalle(), medico.getDireccion().getDistrito(),
@@ -39,9 +55,22 @@ public class MedicoController {
     }
 
     @GetMapping
+    @Transactional(readOnly = true)
     public ResponseEntity<Page<DatosListadoMedico>> listadoMedicos(@PageableDefault(size = 2) Pageable paginacion) {
 //        return medicoRepository.findAll(paginacion).map(DatosListadoMedico::new);
-        return ResponseEntity.ok(medicoRepository.findByActivoTrue(paginacion).map(DatosListadoMedico::new));
+        return ResponseEntity.ok(medicoRepository.listarActivos(paginacion));
+    }
+
+    // GET /medicos?cursor= (vacio para la primera pagina): paginacion por cursor sin count
+    @GetMapping(params = "cursor")
+    @Transactional(readOnly = true)
+    public ResponseEntity<DatosPaginaCursor<DatosListadoMedico>> listadoMedicosPorCursor(@RequestParam String cursor,
+                                                                                       @RequestParam(defaultValue = "10") int size) {
+        var tamanio = Math.max(1, Math.min(size, 100));
+        var desde = CursorNombreId.decodificar(cursor);
+        var medicos = medicoRepository.buscarActivosDespuesDe(desde.nombre(), desde.id(), Limit.of(tamanio + 1));
+        return ResponseEntity.ok(DatosPaginaCursor.de(medicos, tamanio, m -> m,
+                m -> new CursorNombreId(m.nombre(), m.id())));
     }
 
     @PutMapping
@@ -62,18 +91,36 @@ public class MedicoController {
     public ResponseEntity eliminarMedico(@PathVariable Long id) {
         Medico medico = medicoRepository.getReferenceById(id);
         medico.desactivarMedico();
+        asignadorDeMedicos.desactivar(medico);
         return ResponseEntity.noContent().build();
     }
 
     @GetMapping("/{id}")
+    @Transactional(readOnly = true)
     public ResponseEntity<DatosRespuestaMedico> retornaDatosMedico(@PathVariable Long id) {
-        Medico medico = medicoRepository.getReferenceById(id);
-        var datosMedico = new DatosRespuestaMedico(medico.getId(), medico.getNombre(), medico.getEmail(),
-                medico.getTelefono(), medico.getEspecialidad().toString(),
-                new DatosDireccion(medico.getDireccion().getCalle(), medico.getDireccion().getDistrito(),
-                        medico.getDireccion().getCiudad(), medico.getDireccion().getNumero(),
-                        medico.getDireccion().getComplemento()));
+        var datosMedico = medicoRepository.buscarDatosRespuesta(id).orElseThrow(EntityNotFoundException::new);
         return ResponseEntity.ok(datosMedico);
     }
 
+    @GetMapping("/{id}/jornadas")
+    @Transactional(readOnly = true)
+    public ResponseEntity<List<DatosJornada>> retornaJornadas(@PathVariable Long id) {
+        if (!medicoRepository.existsById(id)) {
+            throw new EntityNotFoundException();
+        }
+        return ResponseEntity.ok(calendarioDeAtencion.jornadas(id).stream().map(DatosJornada::new).toList());
+    }
+
+    // PUT /medicos/{id}/jornadas: reemplaza todas las jornadas del medico
+    @PutMapping("/{id}/jornadas")
+    @Transactional
+    public ResponseEntity<List<DatosJornada>> reemplazarJornadas(@PathVariable Long id,
+                                                                 @RequestBody @Valid DatosJornadasMedico datosJornadasMedico) {
+        if (!medicoRepository.existsById(id)) {
+            throw new EntityNotFoundException();
+        }
+        var jornadas = calendarioDeAtencion.reemplazarJornadas(id, datosJornadasMedico.jornadas());
+        return ResponseEntity.ok(jornadas.stream().map(DatosJornada::new).toList());
+    }
+
 }
@@ -3,7 +3,10 @@ package med.voll.api.controller;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
 import med.voll.api.domain.paciente.*;
+import med.voll.api.infra.paginacion.CursorNombreId;
+import med.voll.api.infra.paginacion.DatosPaginaCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
@@ -25,8 +28,21 @@ public class PacienteController {
     }
 
     @GetMapping
+    @Transactional(readOnly = true)
     public Page<DatosListadoPaciente> listar(@PageableDefault(size = 10, sort = {"nombre"}) Pageable paginacion) {
-        return repository.findAllByActivoTrue(paginacion).map(DatosListadoPaciente::new);
+        return repository.listarActivos(paginacion);
+    }
+
+    // GET /pacientes?cursor= (vacio para la primera pagina): paginacion por cursor sin count
+    @GetMapping(params = "cursor")
+    @Transactional(readOnly = true)
+    public DatosPaginaCursor<DatosListadoPaciente> listarPorCursor(@RequestParam String cursor,
+                                                                  @RequestParam(defaultValue = "10") int size) {
+        var tamanio = Math.max(1, Math.min(size, 100));
+        var desde = CursorNombreId.decodificar(cursor);
+        var pacientes = repository.buscarActivosDespuesDe(desde.nombre(), desde.id(), Limit.of(tamanio + 1));
+        return DatosPaginaCursor.de(pacientes, tamanio, p -> p,
+                p -> new CursorNombreId(p.nombre(), p.id()));
     }
 
     @PutMapping
@@ -0,0 +1,4 @@
+package med.voll.api.domain;
+
+public record DatosActividad(Long id, Boolean activo) {
+}
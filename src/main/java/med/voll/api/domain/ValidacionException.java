@@ -2,9 +2,23 @@ package med.voll.api.domain;
 
 //extiende de runtime porque es mas especifo
 public class ValidacionException extends RuntimeException {
+
+    //agrupa los rechazos en las metricas; si no se indica se usa el mensaje, que debe ser fijo
+    private final String categoria;
+
 //   Recibe como parametro el mensaje
     public ValidacionException(String mensaje) {
 //        envie el mensaje a la clase de la cual hereda
+        this(null, mensaje);
+    }
+
+    //para mensajes con datos variables (fechas, limites), que no sirven como categoria
+    public ValidacionException(String categoria, String mensaje) {
         super(mensaje);
+        this.categoria = categoria;
+    }
+
+    public String getCategoria() {
+        return categoria != null ? categoria : getMessage();
     }
-}
\ No newline at end of file
+}
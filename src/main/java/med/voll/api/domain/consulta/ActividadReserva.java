@@ -0,0 +1,7 @@
+package med.voll.api.domain.consulta;
+
+public interface ActividadReserva {
+    Boolean getPacienteActivo();
+
+    Boolean getMedicoActivo();
+}
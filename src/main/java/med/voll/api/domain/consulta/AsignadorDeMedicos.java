@@ -0,0 +1,124 @@
+package med.voll.api.domain.consulta;
+
+import jakarta.annotation.PostConstruct;
+import med.voll.api.domain.consulta.calendario.CalendarioDeAtencion;
+import med.voll.api.domain.consulta.ocupacion.OcupacionDeAgendas;
+import med.voll.api.domain.medico.DatosEspecialidadMedico;
+import med.voll.api.domain.medico.Especialidad;
+import med.voll.api.domain.medico.Medico;
+import med.voll.api.domain.medico.MedicoRepository;
+import med.voll.api.infra.transacciones.TrasConfirmar;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+//Elige un medico libre de la especialidad sin ORDER BY RAND(): mantiene en memoria los medicos activos
+//por especialidad y consulta la ocupacion de cada candidato en el indice de agendas
+@Component
+public class AsignadorDeMedicos {
+
+    @Autowired
+    private MedicoRepository medicoRepository;
+
+    @Autowired
+    private OcupacionDeAgendas ocupacion;
+
+    @Autowired
+    private CalendarioDeAtencion calendario;
+
+    //listas inmutables, se reemplazan completas en cada alta o baja
+    private final Map<Especialidad, List<Long>> activosPorEspecialidad = new ConcurrentHashMap<>();
+    private final Map<Long, Especialidad> especialidadPorMedico = new ConcurrentHashMap<>();
+    private volatile boolean cargado;
+
+    @PostConstruct
+    public void cargar() {
+        var activos = medicoRepository.buscarActivosConEspecialidad().stream()
+                .collect(Collectors.groupingBy(DatosEspecialidadMedico::especialidad,
+                        Collectors.mapping(DatosEspecialidadMedico::id, Collectors.toUnmodifiableList())));
+        activosPorEspecialidad.putAll(activos);
+        activos.forEach((especialidad, ids) -> ids.forEach(id -> especialidadPorMedico.put(id, especialidad)));
+        cargado = true;
+    }
+
+    public Medico elegirMedicoLibre(Especialidad especialidad, LocalDateTime fecha) {
+        var idMedico = reclamarMedicoLibre(especialidad, fecha, Set.of());
+        return idMedico == null ? null : medicoRepository.getReferenceById(idMedico);
+    }
+
+    //Elige y reclama el horario del medico para la transaccion actual. Si otra reserva concurrente gana el mismo
+    //medico se sigue con el proximo candidato libre en lugar de fallar.
+    //descartados: medicos ya tomados en ese horario por reservas que todavia no estan en el indice
+    public Long reclamarMedicoLibre(Especialidad especialidad, LocalDateTime fecha, Set<Long> descartados) {
+        //sin cache se cargan antes los medicos activos: un unico medico al azar no permitiria seguir con otro
+        //candidato cuando ese ya esta descartado o reclamado
+        if (!cargado) {
+            cargar();
+        }
+        var candidatos = activosPorEspecialidad.getOrDefault(especialidad, List.of());
+        var total = candidatos.size();
+        if (total == 0) {
+            return null;
+        }
+        //se empieza en una posicion aleatoria y se avanza hasta el primer medico que se logra reclamar
+        var inicio = ThreadLocalRandom.current().nextInt(total);
+        for (var i = 0; i < total; i++) {
+            var idMedico = candidatos.get((inicio + i) % total);
+            if (!descartados.contains(idMedico) && !ocupacion.medicoOcupado(idMedico, fecha)
+                    && calendario.reservable(idMedico, especialidad, fecha) && ocupacion.reclamar(idMedico, fecha)) {
+                return idMedico;
+            }
+        }
+        return null;
+    }
+
+    public List<Long> medicosActivos(Especialidad especialidad) {
+        if (!cargado) {
+            return medicoRepository.buscarActivosConEspecialidad().stream()
+                    .filter(m -> m.especialidad() == especialidad)
+                    .map(DatosEspecialidadMedico::id)
+                    .toList();
+        }
+        return activosPorEspecialidad.getOrDefault(especialidad, List.of());
+    }
+
+    //solo medicos activos; null si el medico no existe o esta inactivo
+    public Especialidad especialidadDe(Long idMedico) {
+        if (!cargado) {
+            return medicoRepository.findById(idMedico).map(Medico::getEspecialidad).orElse(null);
+        }
+        return especialidadPorMedico.get(idMedico);
+    }
+
+    public void registrar(Medico medico) {
+        var id = medico.getId();
+        var especialidad = medico.getEspecialidad();
+        TrasConfirmar.ejecutar(() -> especialidadPorMedico.put(id, especialidad));
+        TrasConfirmar.ejecutar(() -> activosPorEspecialidad.compute(especialidad, (e, actuales) -> {
+            var nuevos = actuales == null ? new ArrayList<Long>() : new ArrayList<>(actuales);
+            if (!nuevos.contains(id)) {
+                nuevos.add(id);
+            }
+            return List.copyOf(nuevos);
+        }));
+    }
+
+    public void desactivar(Medico medico) {
+        var id = medico.getId();
+        var especialidad = medico.getEspecialidad();
+        TrasConfirmar.ejecutar(() -> especialidadPorMedico.remove(id));
+        TrasConfirmar.ejecutar(() -> activosPorEspecialidad.computeIfPresent(especialidad, (e, actuales) -> {
+            var nuevos = new ArrayList<>(actuales);
+            nuevos.remove(id);
+            return List.copyOf(nuevos);
+        }));
+    }
+}
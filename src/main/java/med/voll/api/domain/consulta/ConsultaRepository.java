@@ -1,8 +1,18 @@
 package med.voll.api.domain.consulta;
 
+import jakarta.persistence.QueryHint;
+import med.voll.api.domain.consulta.ocupacion.DatosOcupacionConsulta;
+import med.voll.api.domain.consulta.validaciones.cancelamiento.ContextoCancelamiento;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 
 public interface ConsultaRepository extends JpaRepository<Consulta, Long> {
     boolean existsByMedicoIdAndFecha(Long idMedico, LocalDateTime fecha);
@@ -10,4 +20,43 @@ public interface ConsultaRepository extends JpaRepository<Consulta, Long> {
     boolean existsByPacienteIdAndFechaBetween(Long idPaciente, LocalDateTime primerHorario, LocalDateTime ultimoHorario);
     boolean existsByMedicoIdAndFechaAndMotivoCancelamientoIsNull(Long idMedico, LocalDateTime fecha);
 
-}
\ No newline at end of file
+    // Query para cargar el indice de ocupacion sin instanciar entidades
+    @Query("""
+            select new med.voll.api.domain.consulta.ocupacion.DatosOcupacionConsulta(c.id, c.medico.id, c.paciente.id, c.fecha)
+            from Consulta c
+            where c.motivoCancelamiento is null
+            and c.fecha >= :desde
+            """)
+    List<DatosOcupacionConsulta> buscarOcupacionDesde(@Param("desde") LocalDateTime desde);
+
+    // Query unica con los flags de actividad de paciente y medico para el contexto de reserva
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("""
+            select p.activo as pacienteActivo,
+            (select m.activo from Medico m where m.id = :idMedico) as medicoActivo
+            from Paciente p
+            where p.id = :idPaciente
+            """)
+    Optional<ActividadReserva> buscarActividadReserva(@Param("idPaciente") Long idPaciente, @Param("idMedico") Long idMedico);
+
+    // Cancelamiento en una sola sentencia: solo actualiza si la consulta sigue activa y no vence la anticipacion minima
+    @Modifying
+    @Query("""
+            update Consulta c
+            set c.motivoCancelamiento = :motivo
+            where c.id = :id
+            and c.motivoCancelamiento is null
+            and c.fecha >= :fechaMinima
+            """)
+    int cancelarSiCorresponde(@Param("id") Long id, @Param("motivo") MotivoCancelamiento motivo,
+                              @Param("fechaMinima") LocalDateTime fechaMinima);
+
+    // Solo se consulta cuando el UPDATE no afecto ninguna fila, para saber por que
+    @Query("""
+            select new med.voll.api.domain.consulta.validaciones.cancelamiento.ContextoCancelamiento(c.medico.id, c.fecha, c.motivoCancelamiento)
+            from Consulta c
+            where c.id = :id
+            """)
+    Optional<ContextoCancelamiento> buscarContextoCancelamiento(@Param("id") Long id);
+
+}
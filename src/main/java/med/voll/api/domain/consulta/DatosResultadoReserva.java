@@ -0,0 +1,13 @@
+package med.voll.api.domain.consulta;
+
+//resultado de cada item de una reserva por lote: consulta o error, nunca ambos
+public record DatosResultadoReserva(int indice, DatosDetalleConsulta consulta, String error) {
+
+    public static DatosResultadoReserva exito(int indice, DatosDetalleConsulta consulta) {
+        return new DatosResultadoReserva(indice, consulta, null);
+    }
+
+    public static DatosResultadoReserva fallo(int indice, String error) {
+        return new DatosResultadoReserva(indice, null, error);
+    }
+}
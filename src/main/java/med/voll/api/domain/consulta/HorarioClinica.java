@@ -0,0 +1,22 @@
+package med.voll.api.domain.consulta;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+//Horario de atencion historico de la clinica: lunes a sabado, consultas que empiezan entre las 07 y las 18 hs.
+//Solo se usa cuando reglas_agenda no define el horario de la clinica; ver CalendarioDeAtencion
+public final class HorarioClinica {
+
+    public static final int APERTURA = 7;
+    public static final int ULTIMA_HORA = 18;
+
+    //bit h encendido = la clinica atiende a las h hs
+    private static final long HORAS_DE_ATENCION = ((1L << (ULTIMA_HORA + 1)) - 1) & ~((1L << APERTURA) - 1);
+
+    private HorarioClinica() {
+    }
+
+    public static long horasDeAtencion(LocalDate dia) {
+        return dia.getDayOfWeek() == DayOfWeek.SUNDAY ? 0L : HORAS_DE_ATENCION;
+    }
+}
@@ -1,15 +1,30 @@
 package med.voll.api.domain.consulta;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityNotFoundException;
 import med.voll.api.domain.ValidacionException;
+import med.voll.api.domain.consulta.calendario.CalendarioDeAtencion;
+import med.voll.api.domain.consulta.eventos.ConsultaCancelada;
+import med.voll.api.domain.consulta.eventos.ConsultaReservada;
+import med.voll.api.domain.consulta.ocupacion.OcupacionDeAgendas;
+import med.voll.api.domain.consulta.validaciones.reserva.ContextoReserva;
 import med.voll.api.domain.consulta.validaciones.reserva.ValidadorDeConsultas;
 import med.voll.api.domain.consulta.validaciones.cancelamiento.ValidadorCancelamientoDeConsulta;
 import med.voll.api.domain.medico.Medico;
 import med.voll.api.domain.medico.MedicoRepository;
 import med.voll.api.domain.paciente.PacienteRepository;
+import med.voll.api.infra.eventos.BandejaDeSalida;
+import med.voll.api.infra.metricas.TimerPorResultado;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.ClassUtils;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 //servicio que puede llamar spring cuando lo necesita
 @Service
@@ -29,36 +44,101 @@ public class ReservaDeConsultas {
     @Autowired
     private List<ValidadorCancelamientoDeConsulta> validadoresCancelamiento;
 
+    @Autowired
+    private OcupacionDeAgendas ocupacion;
+
+    @Autowired
+    private AsignadorDeMedicos asignador;
+
+    @Autowired
+    private CalendarioDeAtencion calendario;
+
+    @Autowired
+    private BandejaDeSalida bandejaDeSalida;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private TimerPorResultado timerReserva;
+    private TimerPorResultado timerCancelamiento;
+    //un timer por bean validador, creados al iniciar para no buscarlos en cada llamada
+    private Map<Object, Timer> timersValidadores;
+
+    @PostConstruct
+    public void registrarMetricas() {
+        timerReserva = new TimerPorResultado(registry, "voll.consultas.reserva", "Reserva de una consulta");
+        timerCancelamiento = new TimerPorResultado(registry, "voll.consultas.cancelamiento", "Cancelamiento de una consulta");
+        var timers = new HashMap<Object, Timer>();
+        validadores.forEach(v -> timers.put(v, timerValidador(v, "reserva")));
+        validadoresCancelamiento.forEach(v -> timers.put(v, timerValidador(v, "cancelamiento")));
+        timersValidadores = Map.copyOf(timers);
+    }
+
+    private Timer timerValidador(Object validador, String operacion) {
+        return Timer.builder("voll.consultas.validador")
+                .description("Tiempo de cada validador de reserva y cancelamiento")
+                .tag("validador", ClassUtils.getUserClass(validador).getSimpleName())
+                .tag("operacion", operacion)
+                .register(registry);
+    }
 
     //Reglas de negocio
+    @Transactional
     public DatosDetalleConsulta reservar(DatosReservaConsulta datos){
+        return timerReserva.medir(() -> reservarConsulta(datos));
+    }
 
-        if(!pacienteRepository.existsById(datos.idPaciente())){
-            throw new ValidacionException("No existe un paciente con el id informado");
-        }
-//evaluamos si se envia idmedico
-        if(datos.idMedico() != null && !medicoRepository.existsById(datos.idMedico())){
-            throw new ValidacionException("No existe un médico con el id informado");
-        }
-//Validaciones
-        validadores.forEach(v -> v.validar(datos));
+    private DatosDetalleConsulta reservarConsulta(DatosReservaConsulta datos){
+
+        var contexto = cargarContexto(datos);
+        validar(datos, contexto);
 //      obtener medico y paciente de BD
         var medico = elegirMedico(datos);
         if(medico == null){
             throw new ValidacionException("No existe un médico disponible en ese horario");
         }
 
-        var paciente = pacienteRepository.findById(datos.idPaciente()).get();
+        var paciente = pacienteRepository.getReferenceById(datos.idPaciente());
         var consulta = new Consulta(null, medico, paciente, datos.fecha(), null);
 
 
         consultaRepository.save(consulta);
-        return new DatosDetalleConsulta(consulta);
+        ocupacion.registrar(consulta);
+        var detalle = new DatosDetalleConsulta(consulta);
+        bandejaDeSalida.publicar(new ConsultaReservada(detalle.id(), detalle.idMedico(), detalle.idPaciente(), detalle.fecha()));
+        return detalle;
+    }
+
+    //comun a la reserva individual y a la reserva por lote
+    void validar(DatosReservaConsulta datos, ContextoReserva contexto) {
+        if(!contexto.pacienteExiste()){
+            throw new ValidacionException("No existe un paciente con el id informado");
+        }
+//evaluamos si se envia idmedico
+        if(datos.idMedico() != null && !contexto.medicoExiste()){
+            throw new ValidacionException("No existe un médico con el id informado");
+        }
+//Validaciones
+        validadores.forEach(v -> timersValidadores.get(v).record(() -> v.validar(datos, contexto)));
+    }
+
+    //una consulta para los flags de actividad; la ocupacion sale del indice en memoria
+    private ContextoReserva cargarContexto(DatosReservaConsulta datos) {
+        var actividad = consultaRepository.buscarActividadReserva(datos.idPaciente(), datos.idMedico());
+        return new ContextoReserva(
+                actividad.map(ActividadReserva::getPacienteActivo).orElse(null),
+                actividad.map(ActividadReserva::getMedicoActivo).orElse(null),
+                ocupacion.medicoOcupado(datos.idMedico(), datos.fecha()),
+                ocupacion.pacienteConConsultaEnElDia(datos.idPaciente(), datos.fecha().toLocalDate()));
     }
 
     private Medico elegirMedico(DatosReservaConsulta datos) {
         //si idmedico es diferente a null
         if(datos.idMedico() != null){
+            //el validador leyo el indice antes; el reclamo atomico decide entre dos reservas simultaneas
+            if(!ocupacion.reclamar(datos.idMedico(), datos.fecha())){
+                throw new ValidacionException("Medico ya tiene otra consulta en esa misma fecha y hora");
+            }
             //retorna el id del medico
             return medicoRepository.getReferenceById(datos.idMedico());
         }
@@ -67,18 +147,36 @@ public class ReservaDeConsultas {
             throw new ValidacionException("Es necesario elegir una especialidad cuando no se elige un médico");
         }
 
-        return medicoRepository.elegirMedicoAleatorioDisponibleEnLaFecha(datos.especialidad(), datos.fecha());
+        return asignador.elegirMedicoLibre(datos.especialidad(), datos.fecha());
     }
 
     public void cancelar(DatosCancelamientoConsulta datos) {
-        if (!consultaRepository.existsById(datos.idConsulta())) {
-            throw new ValidacionException("¡El Id informado de la consulta no existe!");
-        }
+        timerCancelamiento.medir(() -> cancelarConsulta(datos));
+    }
 
-        validadoresCancelamiento.forEach(v -> v.validar(datos));
+    //un solo UPDATE condicional; los validadores solo corren para explicar por que no se cancelo ninguna fila
+    private void cancelarConsulta(DatosCancelamientoConsulta datos) {
+        //el medico sale del indice de ocupacion; si no esta ahi (reservada por otra instancia, o pasada o cancelada)
+        //se lee de la BD para no aplicar la anticipacion general en lugar de la del medico
+        var idMedico = ocupacion.medicoDeConsulta(datos.idConsulta());
+        if (idMedico == null) {
+            idMedico = consultaRepository.buscarContextoCancelamiento(datos.idConsulta())
+                    .orElseThrow(EntityNotFoundException::new)
+                    .idMedico();
+        }
+        var anticipacion = calendario.anticipacionCancelamiento(idMedico, asignador.especialidadDe(idMedico));
+        var fechaMinima = calendario.ahora().plus(anticipacion);
+        if (consultaRepository.cancelarSiCorresponde(datos.idConsulta(), datos.motivo(), fechaMinima) == 1) {
+            ocupacion.liberar(datos.idConsulta());
+            bandejaDeSalida.publicar(new ConsultaCancelada(datos.idConsulta(), idMedico, datos.motivo()));
+            return;
+        }
 
-        var consulta = consultaRepository.getReferenceById(datos.idConsulta());
-        consulta.cancelar(datos.motivo());
+        var contexto = consultaRepository.buscarContextoCancelamiento(datos.idConsulta())
+                .orElseThrow(EntityNotFoundException::new);
+        validadoresCancelamiento.forEach(v -> timersValidadores.get(v).record(() -> v.validar(datos, contexto)));
+        //ningun validador la rechaza: el estado cambio entre el UPDATE y la lectura
+        throw new ValidacionException("La consulta no pudo ser cancelada, intente nuevamente");
     }
 
 
@@ -0,0 +1,196 @@
+package med.voll.api.domain.consulta;
+
+import jakarta.validation.Validator;
+import med.voll.api.domain.DatosActividad;
+import med.voll.api.domain.ValidacionException;
+import med.voll.api.domain.consulta.eventos.ConsultaReservada;
+import med.voll.api.domain.consulta.ocupacion.DatosOcupacionConsulta;
+import med.voll.api.domain.consulta.ocupacion.OcupacionDeAgendas;
+import med.voll.api.domain.consulta.validaciones.reserva.ContextoReserva;
+import med.voll.api.domain.medico.MedicoRepository;
+import med.voll.api.domain.paciente.PacienteRepository;
+import med.voll.api.infra.eventos.BandejaDeSalida;
+import med.voll.api.infra.metricas.ContadorDeRechazos;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+//Reserva muchas consultas en una transaccion: valida todas contra una misma foto de la ocupacion
+//y las inserta con un batch JDBC (IDENTITY impide que Hibernate agrupe los inserts)
+@Service
+public class ReservaDeConsultasEnLote {
+
+    private static final String INSERT_CONSULTA = "insert into consultas(medico_id, paciente_id, fecha) values (?, ?, ?)";
+
+    @Autowired
+    private ReservaDeConsultas reserva;
+
+    @Autowired
+    private AsignadorDeMedicos asignador;
+
+    @Autowired
+    private OcupacionDeAgendas ocupacion;
+
+    @Autowired
+    private MedicoRepository medicoRepository;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BandejaDeSalida bandejaDeSalida;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ContadorDeRechazos contadorDeRechazos;
+
+    @Value("${api.consultas.lote.maximo:500}")
+    private int maximoPorLote;
+
+    @Transactional
+    public List<DatosResultadoReserva> reservar(List<DatosReservaConsulta> lote) {
+        if (lote.size() > maximoPorLote) {
+            throw new ValidacionException("Lote supera el maximo", "El lote supera el maximo de " + maximoPorLote + " consultas");
+        }
+        var pacientesActivos = actividad(ids(lote, DatosReservaConsulta::idPaciente), pacienteRepository::buscarActividad);
+        var medicosActivos = actividad(ids(lote, DatosReservaConsulta::idMedico), medicoRepository::buscarActividad);
+
+        //horarios y dias tomados por items anteriores del mismo lote
+        var horariosTomados = new HashMap<LocalDateTime, Set<Long>>();
+        var diasTomados = new HashSet<DiaPaciente>();
+
+        var resultados = new DatosResultadoReserva[lote.size()];
+        var aceptadas = new ArrayList<Aceptada>();
+        for (var i = 0; i < lote.size(); i++) {
+            var datos = lote.get(i);
+            try {
+                validarCampos(datos);
+                var tomados = horariosTomados.getOrDefault(datos.fecha(), Set.of());
+                var dia = new DiaPaciente(datos.idPaciente(), datos.fecha().toLocalDate());
+                var contexto = new ContextoReserva(
+                        pacientesActivos.get(datos.idPaciente()),
+                        datos.idMedico() == null ? null : medicosActivos.get(datos.idMedico()),
+                        ocupacion.medicoOcupado(datos.idMedico(), datos.fecha()) || (datos.idMedico() != null && tomados.contains(datos.idMedico())),
+                        ocupacion.pacienteConConsultaEnElDia(datos.idPaciente(), dia.dia()) || diasTomados.contains(dia));
+                reserva.validar(datos, contexto);
+
+                var idMedico = elegirMedico(datos, tomados);
+                horariosTomados.computeIfAbsent(datos.fecha(), f -> new HashSet<>()).add(idMedico);
+                diasTomados.add(dia);
+                aceptadas.add(new Aceptada(i, idMedico, datos));
+            } catch (ValidacionException e) {
+                contadorDeRechazos.registrar(e);
+                resultados[i] = DatosResultadoReserva.fallo(i, e.getMessage());
+            }
+        }
+
+        var ids = insertar(aceptadas);
+        var eventos = new ArrayList<ConsultaReservada>(aceptadas.size());
+        for (var j = 0; j < aceptadas.size(); j++) {
+            var aceptada = aceptadas.get(j);
+            var detalle = new DatosDetalleConsulta(ids.get(j), aceptada.idMedico(), aceptada.datos().idPaciente(), aceptada.datos().fecha());
+            ocupacion.registrar(new DatosOcupacionConsulta(detalle.id(), detalle.idMedico(), detalle.idPaciente(), detalle.fecha()));
+            resultados[aceptada.indice()] = DatosResultadoReserva.exito(aceptada.indice(), detalle);
+            eventos.add(new ConsultaReservada(detalle.id(), detalle.idMedico(), detalle.idPaciente(), detalle.fecha()));
+        }
+        bandejaDeSalida.publicar(eventos);
+        return List.of(resultados);
+    }
+
+    private void validarCampos(DatosReservaConsulta datos) {
+        if (datos == null) {
+            throw new ValidacionException("Item del lote vacio");
+        }
+        var errores = validator.validate(datos);
+        if (!errores.isEmpty()) {
+            throw new ValidacionException("Campos de la reserva invalidos", errores.stream()
+                    .map(e -> e.getPropertyPath() + ": " + e.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+    }
+
+    private Long elegirMedico(DatosReservaConsulta datos, Set<Long> tomados) {
+        if (datos.idMedico() != null) {
+            if (!ocupacion.reclamar(datos.idMedico(), datos.fecha())) {
+                throw new ValidacionException("Medico ya tiene otra consulta en esa misma fecha y hora");
+            }
+            return datos.idMedico();
+        }
+        if (datos.especialidad() == null) {
+            throw new ValidacionException("Es necesario elegir una especialidad cuando no se elige un médico");
+        }
+        var idMedico = asignador.reclamarMedicoLibre(datos.especialidad(), datos.fecha(), tomados);
+        if (idMedico == null) {
+            throw new ValidacionException("No existe un médico disponible en ese horario");
+        }
+        return idMedico;
+    }
+
+    //participa de la transaccion actual; devuelve los ids generados en el mismo orden. Si otra instancia confirmo el
+    //mismo horario de medico despues de la validacion, la restriccion unica hace fallar el batch y el lote completo
+    //termina en 409 sin guardar ninguna consulta
+    private List<Long> insertar(List<Aceptada> aceptadas) {
+        if (aceptadas.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.execute((ConnectionCallback<List<Long>>) conexion -> {
+            try (var statement = conexion.prepareStatement(INSERT_CONSULTA, Statement.RETURN_GENERATED_KEYS)) {
+                for (var aceptada : aceptadas) {
+                    statement.setLong(1, aceptada.idMedico());
+                    statement.setLong(2, aceptada.datos().idPaciente());
+                    statement.setTimestamp(3, Timestamp.valueOf(aceptada.datos().fecha()));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                var ids = new ArrayList<Long>(aceptadas.size());
+                try (var claves = statement.getGeneratedKeys()) {
+                    while (claves.next()) {
+                        ids.add(claves.getLong(1));
+                    }
+                }
+                return ids;
+            }
+        });
+    }
+
+    private static Set<Long> ids(List<DatosReservaConsulta> lote, Function<DatosReservaConsulta, Long> id) {
+        return lote.stream().filter(Objects::nonNull).map(id).filter(Objects::nonNull).collect(Collectors.toSet());
+    }
+
+    private static Map<Long, Boolean> actividad(Set<Long> ids, Function<Set<Long>, List<DatosActividad>> buscar) {
+        var activos = new HashMap<Long, Boolean>();
+        if (!ids.isEmpty()) {
+            buscar.apply(ids).forEach(a -> activos.put(a.id(), a.activo()));
+        }
+        return activos;
+    }
+
+    private record DiaPaciente(Long idPaciente, LocalDate dia) {
+    }
+
+    private record Aceptada(int indice, Long idMedico, DatosReservaConsulta datos) {
+    }
+}
@@ -0,0 +1,214 @@
+package med.voll.api.domain.consulta.calendario;
+
+import med.voll.api.domain.consulta.HorarioClinica;
+import med.voll.api.domain.medico.Especialidad;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+//Reglas de agenda ya resueltas: por alcance, una mascara de horas por dia de la semana (bit h = atiende a las h:00),
+//los feriados como conjuntos de fechas y las anticipaciones. Inmutable; se reemplaza completo al recargar.
+//El horario de un medico es el de la clinica intersectado con el mas especifico definido: sus jornadas o el de su especialidad
+final class CalendarioCompilado {
+
+    private static final Duration RESERVA_POR_DEFECTO = Duration.ofMinutes(30);
+    private static final Duration CANCELAMIENTO_POR_DEFECTO = Duration.ofHours(24);
+
+    private final long[] horarioClinica;
+    private final Map<Especialidad, long[]> horarioEspecialidades;
+    private final Map<Long, long[]> horarioMedicos;
+    private final Set<LocalDate> feriadosClinica;
+    private final Map<Especialidad, Set<LocalDate>> feriadosEspecialidades;
+    private final Map<Long, Set<LocalDate>> feriadosMedicos;
+    private final Anticipacion anticipacionClinica;
+    private final Map<Especialidad, Anticipacion> anticipacionEspecialidades;
+    private final Map<Long, Anticipacion> anticipacionMedicos;
+
+    private CalendarioCompilado(Alcances<long[]> horarios, Alcances<Set<LocalDate>> feriados, Alcances<Anticipacion> anticipaciones) {
+        this.horarioClinica = horarios.clinica == null ? horarioPorDefecto() : horarios.clinica;
+        this.horarioEspecialidades = Map.copyOf(horarios.especialidades);
+        this.horarioMedicos = Map.copyOf(horarios.medicos);
+        this.feriadosClinica = feriados.clinica == null ? Set.of() : Set.copyOf(feriados.clinica);
+        this.feriadosEspecialidades = copiar(feriados.especialidades);
+        this.feriadosMedicos = copiar(feriados.medicos);
+        var clinica = anticipaciones.clinica == null ? new Anticipacion(null, null) : anticipaciones.clinica;
+        this.anticipacionClinica = new Anticipacion(
+                clinica.reserva() == null ? RESERVA_POR_DEFECTO : clinica.reserva(),
+                clinica.cancelamiento() == null ? CANCELAMIENTO_POR_DEFECTO : clinica.cancelamiento());
+        this.anticipacionEspecialidades = Map.copyOf(anticipaciones.especialidades);
+        this.anticipacionMedicos = Map.copyOf(anticipaciones.medicos);
+    }
+
+    //sin reglas de horario de la clinica se usa el horario historico de HorarioClinica
+    static CalendarioCompilado compilar(List<ReglaAgenda> reglas, List<Jornada> jornadas) {
+        var horarios = new Alcances<long[]>();
+        var feriados = new Alcances<Set<LocalDate>>();
+        var anticipaciones = new Alcances<Anticipacion>();
+        for (var regla : reglas) {
+            switch (regla.getTipo()) {
+                case HORARIO -> {
+                    if (regla.getIdMedico() != null) {
+                        throw new IllegalArgumentException("Regla " + regla.getId() + ": el horario de un medico se define en sus jornadas");
+                    }
+                    validarHorario("Regla " + regla.getId(), regla.getDiaSemana(), regla.getHoraInicio(), regla.getHoraFin());
+                    var semana = horarios.obtener(regla, () -> new long[7]);
+                    semana[regla.getDiaSemana() - 1] |= mascara(regla.getHoraInicio(), regla.getHoraFin());
+                }
+                case FERIADO -> {
+                    if (regla.getFecha() == null) {
+                        throw new IllegalArgumentException("Regla " + regla.getId() + ": un feriado necesita fecha");
+                    }
+                    feriados.obtener(regla, HashSet::new).add(regla.getFecha());
+                }
+                case ANTICIPACION -> anticipaciones.poner(regla, anticipaciones.obtener(regla, () -> new Anticipacion(null, null))
+                        .combinar(new Anticipacion(minutos(regla.getReservaMinutos()), minutos(regla.getCancelacionMinutos()))));
+            }
+        }
+        for (var jornada : jornadas) {
+            validarHorario("Jornada " + jornada.getId(), jornada.getDiaSemana(), jornada.getHoraInicio(), jornada.getHoraFin());
+            var semana = horarios.medicos.computeIfAbsent(jornada.getIdMedico(), id -> new long[7]);
+            semana[jornada.getDiaSemana() - 1] |= mascara(jornada.getHoraInicio(), jornada.getHoraFin());
+        }
+        return new CalendarioCompilado(horarios, feriados, anticipaciones);
+    }
+
+    //misma mascara que horasDeAtencion para cada medico de la lista, todos de la misma especialidad: los feriados de
+    //clinica y especialidad y el horario por defecto se resuelven una sola vez y por medico queda una busqueda por mapa
+    void horasDeAtencion(List<Long> medicos, Especialidad especialidad, LocalDate dia, long[] destino) {
+        var total = medicos.size();
+        if (feriadosClinica.contains(dia) || feriadosEspecialidades.getOrDefault(especialidad, Set.of()).contains(dia)) {
+            Arrays.fill(destino, 0, total, 0L);
+            return;
+        }
+        var indice = dia.getDayOfWeek().getValue() - 1;
+        var deEspecialidad = horarioEspecialidades.get(especialidad);
+        var comun = deEspecialidad == null ? horarioClinica[indice] : horarioClinica[indice] & deEspecialidad[indice];
+        if (horarioMedicos.isEmpty() && feriadosMedicos.isEmpty()) {
+            Arrays.fill(destino, 0, total, comun);
+            return;
+        }
+        for (var i = 0; i < total; i++) {
+            var idMedico = medicos.get(i);
+            var propio = horarioMedicos.get(idMedico);
+            destino[i] = feriadosMedicos.getOrDefault(idMedico, Set.of()).contains(dia) ? 0L
+                    : propio == null ? comun : horarioClinica[indice] & propio[indice];
+        }
+    }
+
+    long horasDeAtencion(Long idMedico, Especialidad especialidad, LocalDate dia) {
+        if (feriado(idMedico, especialidad, dia)) {
+            return 0L;
+        }
+        var indice = dia.getDayOfWeek().getValue() - 1;
+        var propio = idMedico == null ? null : horarioMedicos.get(idMedico);
+        if (propio == null && especialidad != null) {
+            propio = horarioEspecialidades.get(especialidad);
+        }
+        return propio == null ? horarioClinica[indice] : horarioClinica[indice] & propio[indice];
+    }
+
+    Duration anticipacionReserva(Long idMedico, Especialidad especialidad) {
+        var medico = idMedico == null ? null : anticipacionMedicos.get(idMedico);
+        if (medico != null && medico.reserva() != null) {
+            return medico.reserva();
+        }
+        var deEspecialidad = especialidad == null ? null : anticipacionEspecialidades.get(especialidad);
+        return deEspecialidad != null && deEspecialidad.reserva() != null ? deEspecialidad.reserva() : anticipacionClinica.reserva();
+    }
+
+    Duration anticipacionCancelamiento(Long idMedico, Especialidad especialidad) {
+        var medico = idMedico == null ? null : anticipacionMedicos.get(idMedico);
+        if (medico != null && medico.cancelamiento() != null) {
+            return medico.cancelamiento();
+        }
+        var deEspecialidad = especialidad == null ? null : anticipacionEspecialidades.get(especialidad);
+        return deEspecialidad != null && deEspecialidad.cancelamiento() != null
+                ? deEspecialidad.cancelamiento() : anticipacionClinica.cancelamiento();
+    }
+
+    boolean feriado(Long idMedico, Especialidad especialidad, LocalDate dia) {
+        return feriadosClinica.contains(dia)
+                || (especialidad != null && feriadosEspecialidades.getOrDefault(especialidad, Set.of()).contains(dia))
+                || (idMedico != null && feriadosMedicos.getOrDefault(idMedico, Set.of()).contains(dia));
+    }
+
+    private static void validarHorario(String origen, Integer diaSemana, Integer horaInicio, Integer horaFin) {
+        if (diaSemana == null || diaSemana < 1 || diaSemana > 7 || horaInicio == null || horaFin == null
+                || horaInicio < 0 || horaFin > 23 || horaInicio > horaFin) {
+            throw new IllegalArgumentException(origen + ": horario invalido");
+        }
+    }
+
+    //bits desde la hora de inicio hasta la ultima hora en punto, inclusive
+    private static long mascara(int horaInicio, int horaFin) {
+        return ((1L << (horaFin + 1)) - 1) & ~((1L << horaInicio) - 1);
+    }
+
+    private static long[] horarioPorDefecto() {
+        var semana = new long[7];
+        //el 1 de enero de 2024 fue lunes
+        var lunes = LocalDate.of(2024, 1, 1);
+        for (var i = 0; i < 7; i++) {
+            semana[i] = HorarioClinica.horasDeAtencion(lunes.plusDays(i));
+        }
+        return semana;
+    }
+
+    private static Duration minutos(Integer minutos) {
+        return minutos == null ? null : Duration.ofMinutes(minutos);
+    }
+
+    private static <K> Map<K, Set<LocalDate>> copiar(Map<K, Set<LocalDate>> feriados) {
+        var copia = new HashMap<K, Set<LocalDate>>();
+        feriados.forEach((clave, fechas) -> copia.put(clave, Set.copyOf(fechas)));
+        return Map.copyOf(copia);
+    }
+
+    record Anticipacion(Duration reserva, Duration cancelamiento) {
+
+        //los campos que la regla nueva no define se toman de la anterior del mismo alcance
+        Anticipacion combinar(Anticipacion nueva) {
+            return new Anticipacion(nueva.reserva() != null ? nueva.reserva() : reserva,
+                    nueva.cancelamiento() != null ? nueva.cancelamiento() : cancelamiento);
+        }
+    }
+
+    //valores de una regla agrupados por alcance: clinica, especialidad o medico
+    private static class Alcances<T> {
+
+        private T clinica;
+        private final Map<Especialidad, T> especialidades = new EnumMap<>(Especialidad.class);
+        private final Map<Long, T> medicos = new HashMap<>();
+
+        T obtener(ReglaAgenda regla, Supplier<T> nuevo) {
+            if (regla.getIdMedico() != null) {
+                return medicos.computeIfAbsent(regla.getIdMedico(), id -> nuevo.get());
+            }
+            if (regla.getEspecialidad() != null) {
+                return especialidades.computeIfAbsent(regla.getEspecialidad(), e -> nuevo.get());
+            }
+            if (clinica == null) {
+                clinica = nuevo.get();
+            }
+            return clinica;
+        }
+
+        void poner(ReglaAgenda regla, T valor) {
+            if (regla.getIdMedico() != null) {
+                medicos.put(regla.getIdMedico(), valor);
+            } else if (regla.getEspecialidad() != null) {
+                especialidades.put(regla.getEspecialidad(), valor);
+            } else {
+                clinica = valor;
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package med.voll.api.domain.consulta.calendario;
+
+import jakarta.annotation.PostConstruct;
+import med.voll.api.domain.ValidacionException;
+import med.voll.api.domain.medico.Especialidad;
+import med.voll.api.infra.transacciones.TrasConfirmar;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+//Horarios de atencion, feriados y anticipaciones leidos de reglas_agenda y de las jornadas de los medicos,
+//compilados en mascaras semanales.
+//Cada consulta al calendario es un par de busquedas en mapas y una operacion de bits; las reglas se recargan
+//periodicamente sin reiniciar y una regla invalida deja en uso el calendario anterior
+@Component
+public class CalendarioDeAtencion {
+
+    private static final Logger log = LoggerFactory.getLogger(CalendarioDeAtencion.class);
+
+    @Autowired
+    private ReglaAgendaRepository repository;
+
+    @Autowired
+    private JornadaRepository jornadaRepository;
+
+    @Autowired
+    private Clock reloj;
+
+    private volatile CalendarioCompilado calendario;
+
+    @PostConstruct
+    public void cargar() {
+        calendario = CalendarioCompilado.compilar(repository.findAll(), jornadaRepository.findAll());
+    }
+
+    @Scheduled(fixedDelayString = "${api.agenda.reglas.intervalo-recarga:60000}")
+    public void recargar() {
+        try {
+            cargar();
+        } catch (RuntimeException exception) {
+            log.error("No se pudieron recargar las reglas de agenda, se mantienen las actuales", exception);
+        }
+    }
+
+    public LocalDateTime ahora() {
+        return LocalDateTime.now(reloj);
+    }
+
+    //horario, feriados y anticipacion en una sola evaluacion, con una sola lectura del reloj
+    public void validarReserva(Long idMedico, Especialidad especialidad, LocalDateTime fecha) {
+        var actual = calendario;
+        if (actual.feriado(idMedico, especialidad, fecha.toLocalDate())) {
+            throw new ValidacionException("No hay atencion en la fecha seleccionada");
+        }
+        if (!atiende(actual, idMedico, especialidad, fecha)) {
+            throw new ValidacionException("Horario selecionado fuera del horario de atendimiento de la clinica.");
+        }
+        var anticipacion = actual.anticipacionReserva(idMedico, especialidad);
+        if (fecha.isBefore(ahora().plus(anticipacion))) {
+            throw new ValidacionException("Reserva sin anticipacion minima",
+                    "Horario seleccionado con menos de " + anticipacion.toMinutes() + " minutos de anticipacion");
+        }
+    }
+
+    public boolean reservable(Long idMedico, Especialidad especialidad, LocalDateTime fecha) {
+        var actual = calendario;
+        return atiende(actual, idMedico, especialidad, fecha)
+                && !fecha.isBefore(ahora().plus(actual.anticipacionReserva(idMedico, especialidad)));
+    }
+
+    //bit h encendido = se puede reservar a las h:00 de ese dia, ya descontada la anticipacion desde 'ahora'
+    public long horasReservables(Long idMedico, Especialidad especialidad, LocalDate dia, LocalDateTime ahora) {
+        var actual = calendario;
+        return actual.horasDeAtencion(idMedico, especialidad, dia)
+                & horasDesde(dia, ahora.plus(actual.anticipacionReserva(idMedico, especialidad)));
+    }
+
+    //horasReservables de cada medico de la lista, todos de la misma especialidad, en destino[i]
+    public void horasReservables(List<Long> medicos, Especialidad especialidad, LocalDate dia, LocalDateTime ahora, long[] destino) {
+        var actual = calendario;
+        actual.horasDeAtencion(medicos, especialidad, dia, destino);
+        var anticipacionComun = actual.anticipacionReserva(null, especialidad);
+        var desdeComun = horasDesde(dia, ahora.plus(anticipacionComun));
+        for (var i = 0; i < medicos.size(); i++) {
+            var anticipacion = actual.anticipacionReserva(medicos.get(i), especialidad);
+            destino[i] &= anticipacion.equals(anticipacionComun) ? desdeComun : horasDesde(dia, ahora.plus(anticipacion));
+        }
+    }
+
+    //reemplaza las jornadas del medico; el calendario se recompila cuando la transaccion confirma
+    public List<Jornada> reemplazarJornadas(Long idMedico, List<DatosJornada> jornadas) {
+        for (var jornada : jornadas) {
+            if (jornada.horaInicio() > jornada.horaFin()) {
+                throw new ValidacionException("Jornada invalida", "La hora de inicio de la jornada no puede ser posterior a la hora de fin");
+            }
+        }
+        jornadaRepository.eliminarDelMedico(idMedico);
+        var nuevas = jornadaRepository.saveAll(jornadas.stream().map(j -> new Jornada(idMedico, j)).toList());
+        TrasConfirmar.ejecutar(this::recargar);
+        return nuevas;
+    }
+
+    public List<Jornada> jornadas(Long idMedico) {
+        return jornadaRepository.findByIdMedicoOrderByDiaSemanaAscHoraInicioAsc(idMedico);
+    }
+
+    public Duration anticipacionCancelamiento(Long idMedico, Especialidad especialidad) {
+        return calendario.anticipacionCancelamiento(idMedico, especialidad);
+    }
+
+    //mascara de las horas en punto del dia que no son anteriores a primerHorario
+    private static long horasDesde(LocalDate dia, LocalDateTime primerHorario) {
+        var primerDia = primerHorario.toLocalDate();
+        if (dia.isBefore(primerDia)) {
+            return 0L;
+        }
+        if (dia.isAfter(primerDia)) {
+            return -1L;
+        }
+        var primeraHora = primerHorario.truncatedTo(ChronoUnit.HOURS).equals(primerHorario)
+                ? primerHorario.getHour() : primerHorario.getHour() + 1;
+        return primeraHora >= 24 ? 0L : -1L << primeraHora;
+    }
+
+    private static boolean atiende(CalendarioCompilado calendario, Long idMedico, Especialidad especialidad, LocalDateTime fecha) {
+        return (calendario.horasDeAtencion(idMedico, especialidad, fecha.toLocalDate()) & (1L << fecha.getHour())) != 0;
+    }
+}
@@ -0,0 +1,18 @@
+package med.voll.api.domain.consulta.calendario;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public record DatosJornada(
+        @NotNull @Min(1) @Max(7)
+        Integer diaSemana,
+        @NotNull @Min(0) @Max(23)
+        Integer horaInicio,
+        @NotNull @Min(0) @Max(23)
+        Integer horaFin) {
+
+    public DatosJornada(Jornada jornada) {
+        this(jornada.getDiaSemana(), jornada.getHoraInicio(), jornada.getHoraFin());
+    }
+}
@@ -0,0 +1,12 @@
+package med.voll.api.domain.consulta.calendario;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+//lista vacia = el medico vuelve al horario de su especialidad o de la clinica
+public record DatosJornadasMedico(
+        @NotNull
+        List<@Valid @NotNull DatosJornada> jornadas) {
+}
@@ -0,0 +1,35 @@
+package med.voll.api.domain.consulta.calendario;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+//Turno semanal de un medico: atiende el dia_semana (1 = lunes) en las horas en punto de hora_inicio a hora_fin inclusive
+@Table(name = "jornadas")
+@Entity(name = "Jornada")
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "id")
+public class Jornada {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "medico_id")
+    private Long idMedico;
+
+    private Integer diaSemana;
+    private Integer horaInicio;
+    private Integer horaFin;
+
+    public Jornada(Long idMedico, DatosJornada datos) {
+        this.idMedico = idMedico;
+        this.diaSemana = datos.diaSemana();
+        this.horaInicio = datos.horaInicio();
+        this.horaFin = datos.horaFin();
+    }
+}
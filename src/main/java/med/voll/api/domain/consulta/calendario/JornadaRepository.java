@@ -0,0 +1,17 @@
+package med.voll.api.domain.consulta.calendario;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface JornadaRepository extends JpaRepository<Jornada, Long> {
+
+    List<Jornada> findByIdMedicoOrderByDiaSemanaAscHoraInicioAsc(Long idMedico);
+
+    @Modifying
+    @Query("delete from Jornada j where j.idMedico = :idMedico")
+    int eliminarDelMedico(@Param("idMedico") Long idMedico);
+}
@@ -0,0 +1,40 @@
+package med.voll.api.domain.consulta.calendario;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import med.voll.api.domain.medico.Especialidad;
+
+import java.time.LocalDate;
+
+//Regla de agenda de toda la clinica, de una especialidad o de un medico (especialidad y medico_id en null = clinica)
+@Table(name = "reglas_agenda")
+@Entity(name = "ReglaAgenda")
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "id")
+public class ReglaAgenda {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    private TipoReglaAgenda tipo;
+
+    @Enumerated(EnumType.STRING)
+    private Especialidad especialidad;
+
+    @Column(name = "medico_id")
+    private Long idMedico;
+
+    private Integer diaSemana;
+    private Integer horaInicio;
+    private Integer horaFin;
+    private LocalDate fecha;
+    private Integer reservaMinutos;
+    private Integer cancelacionMinutos;
+}
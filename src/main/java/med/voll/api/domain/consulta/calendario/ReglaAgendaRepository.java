@@ -0,0 +1,6 @@
+package med.voll.api.domain.consulta.calendario;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ReglaAgendaRepository extends JpaRepository<ReglaAgenda, Long> {
+}
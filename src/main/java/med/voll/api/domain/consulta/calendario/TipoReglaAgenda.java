@@ -0,0 +1,10 @@
+package med.voll.api.domain.consulta.calendario;
+
+public enum TipoReglaAgenda {
+    //dia_semana (1 = lunes) con la primera y la ultima hora en punto de atencion
+    HORARIO,
+    //fecha sin atencion
+    FERIADO,
+    //minutos minimos de anticipacion para reservar y para cancelar
+    ANTICIPACION
+}
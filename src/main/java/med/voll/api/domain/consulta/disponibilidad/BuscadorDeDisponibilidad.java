@@ -0,0 +1,115 @@
+package med.voll.api.domain.consulta.disponibilidad;
+
+import med.voll.api.domain.ValidacionException;
+import med.voll.api.domain.consulta.AsignadorDeMedicos;
+import med.voll.api.domain.consulta.calendario.CalendarioDeAtencion;
+import med.voll.api.domain.consulta.ocupacion.OcupacionDeAgendas;
+import med.voll.api.domain.medico.Especialidad;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+//Horarios en punto libres por medico, resueltos en memoria: horas reservables del calendario de atencion menos el
+//bitmap de horas ocupadas de cada medico activo de la especialidad. Se trabaja un dia a la vez sobre arreglos de
+//palabras alineados con la lista de medicos, asi cada medico cuesta un AND NOT y no una consulta por horario
+@Service
+public class BuscadorDeDisponibilidad {
+
+    @Autowired
+    private CalendarioDeAtencion calendario;
+
+    @Autowired
+    private AsignadorDeMedicos asignador;
+
+    @Autowired
+    private OcupacionDeAgendas ocupacion;
+
+    public List<DatosDisponibilidadMedico> buscar(Especialidad especialidad, LocalDate desde, LocalDate hasta) {
+        if (especialidad == null || desde == null || hasta == null) {
+            throw new ValidacionException("Especialidad, desde y hasta son obligatorios");
+        }
+        if (hasta.isBefore(desde)) {
+            throw new ValidacionException("La fecha hasta no puede ser anterior a la fecha desde");
+        }
+        if (hasta.isAfter(ocupacion.finDelHorizonte())) {
+            throw new ValidacionException("Disponibilidad fuera del horizonte",
+                    "Solo se puede consultar la disponibilidad hasta el " + ocupacion.finDelHorizonte());
+        }
+        var ahora = calendario.ahora();
+        var inicio = desde.isBefore(ahora.toLocalDate()) ? ahora.toLocalDate() : desde;
+        if (inicio.isAfter(hasta)) {
+            return List.of();
+        }
+        var dias = (int) ChronoUnit.DAYS.between(inicio, hasta) + 1;
+
+        var medicos = asignador.medicosActivos(especialidad);
+        var libres = new long[dias][];
+        for (var i = 0; i < dias; i++) {
+            libres[i] = new long[medicos.size()];
+            horasLibres(medicos, especialidad, inicio.plusDays(i), ahora, libres[i], new long[medicos.size()]);
+        }
+        var disponibilidad = new ArrayList<DatosDisponibilidadMedico>();
+        for (var m = 0; m < medicos.size(); m++) {
+            var horarios = new ArrayList<LocalDateTime>();
+            for (var i = 0; i < dias; i++) {
+                var dia = inicio.plusDays(i);
+                var horas = libres[i][m];
+                while (horas != 0) {
+                    horarios.add(dia.atTime(Long.numberOfTrailingZeros(horas), 0));
+                    horas &= horas - 1;
+                }
+            }
+            if (!horarios.isEmpty()) {
+                disponibilidad.add(new DatosDisponibilidadMedico(medicos.get(m), horarios));
+            }
+        }
+        return disponibilidad;
+    }
+
+    //Primer horario libre de la especialidad desde la fecha indicada (hoy si es null) hasta el fin del horizonte.
+    //Por dia: OR de las horas libres de todos los medicos, la hora mas temprana es su bit mas bajo y el medico el
+    //primero que lo tiene. Los dias sin ninguna hora libre se descartan con esa sola pasada
+    public Optional<DatosProximoHorario> buscarProximo(Especialidad especialidad, LocalDate desde) {
+        if (especialidad == null) {
+            throw new ValidacionException("Especialidad es obligatoria");
+        }
+        var ahora = calendario.ahora();
+        var dia = desde == null || desde.isBefore(ahora.toLocalDate()) ? ahora.toLocalDate() : desde;
+        var medicos = asignador.medicosActivos(especialidad);
+        var libres = new long[medicos.size()];
+        var ocupadas = new long[medicos.size()];
+        for (var fin = ocupacion.finDelHorizonte(); !dia.isAfter(fin); dia = dia.plusDays(1)) {
+            horasLibres(medicos, especialidad, dia, ahora, libres, ocupadas);
+            var union = 0L;
+            for (var horas : libres) {
+                union |= horas;
+            }
+            if (union == 0) {
+                continue;
+            }
+            var primera = Long.lowestOneBit(union);
+            for (var m = 0; m < libres.length; m++) {
+                if ((libres[m] & primera) != 0) {
+                    return Optional.of(new DatosProximoHorario(medicos.get(m), dia.atTime(Long.numberOfTrailingZeros(primera), 0)));
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    //libres[i] = horas reservables y no ocupadas del medico i ese dia; ocupadas es solo un arreglo de trabajo
+    private void horasLibres(List<Long> medicos, Especialidad especialidad, LocalDate dia, LocalDateTime ahora,
+                             long[] libres, long[] ocupadas) {
+        calendario.horasReservables(medicos, especialidad, dia, ahora, libres);
+        ocupacion.horasOcupadas(medicos, dia, ocupadas);
+        for (var i = 0; i < libres.length; i++) {
+            libres[i] &= ~ocupadas[i];
+        }
+    }
+}
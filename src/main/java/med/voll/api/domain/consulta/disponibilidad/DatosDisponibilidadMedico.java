@@ -0,0 +1,7 @@
+package med.voll.api.domain.consulta.disponibilidad;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record DatosDisponibilidadMedico(Long idMedico, List<LocalDateTime> horarios) {
+}
@@ -0,0 +1,6 @@
+package med.voll.api.domain.consulta.disponibilidad;
+
+import java.time.LocalDateTime;
+
+public record DatosProximoHorario(Long idMedico, LocalDateTime fecha) {
+}
@@ -0,0 +1,30 @@
+package med.voll.api.domain.consulta.eventos;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+//Deja cada evento en el log con sus campos como pares clave=valor
+@Component
+public class BitacoraDeConsultas implements ConsumidorDeEventos {
+
+    private static final Logger log = LoggerFactory.getLogger(BitacoraDeConsultas.class);
+
+    @Override
+    public void procesar(EventoDeConsulta evento) {
+        if (evento instanceof ConsultaReservada reservada) {
+            log.atDebug().setMessage("consulta reservada")
+                    .addKeyValue("consulta", reservada.idConsulta())
+                    .addKeyValue("medico", reservada.idMedico())
+                    .addKeyValue("paciente", reservada.idPaciente())
+                    .addKeyValue("fecha", reservada.fecha())
+                    .log();
+        } else if (evento instanceof ConsultaCancelada cancelada) {
+            log.atDebug().setMessage("consulta cancelada")
+                    .addKeyValue("consulta", cancelada.idConsulta())
+                    .addKeyValue("medico", cancelada.idMedico())
+                    .addKeyValue("motivo", cancelada.motivo())
+                    .log();
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package med.voll.api.domain.consulta.eventos;
+
+import med.voll.api.domain.consulta.MotivoCancelamiento;
+
+public record ConsultaCancelada(Long idConsulta, Long idMedico, MotivoCancelamiento motivo) implements EventoDeConsulta {
+}
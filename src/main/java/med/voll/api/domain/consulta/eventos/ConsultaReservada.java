@@ -0,0 +1,6 @@
+package med.voll.api.domain.consulta.eventos;
+
+import java.time.LocalDateTime;
+
+public record ConsultaReservada(Long idConsulta, Long idMedico, Long idPaciente, LocalDateTime fecha) implements EventoDeConsulta {
+}
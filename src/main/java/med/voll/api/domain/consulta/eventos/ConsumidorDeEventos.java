@@ -0,0 +1,9 @@
+package med.voll.api.domain.consulta.eventos;
+
+//Efecto secundario de una reserva o cancelamiento (notificaciones, recordatorios, analitica). Cada bean que implementa
+//esta interfaz recibe todos los eventos. La entrega es al menos una vez: si un consumidor falla el evento se reintenta
+//para todos, por lo que procesar debe ser idempotente
+public interface ConsumidorDeEventos {
+
+    void procesar(EventoDeConsulta evento) throws Exception;
+}
@@ -0,0 +1,8 @@
+package med.voll.api.domain.consulta.eventos;
+
+//Hecho ya confirmado sobre una consulta. Se guarda en la bandeja de salida en la misma transaccion que lo produce
+//y los consumidores lo reciben despues, fuera de la peticion, en el orden en que ocurrieron para cada consulta
+public sealed interface EventoDeConsulta permits ConsultaReservada, ConsultaCancelada {
+
+    Long idConsulta();
+}
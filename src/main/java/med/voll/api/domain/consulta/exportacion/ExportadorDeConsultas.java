@@ -0,0 +1,174 @@
+package med.voll.api.domain.consulta.exportacion;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import med.voll.api.domain.ValidacionException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+//Exporta las consultas de un rango de fechas fila por fila: un cursor JDBC de solo avance con los nombres de medico
+//y paciente ya unidos, escrito directo en la salida. No se arma ninguna lista, la memoria no depende del total de filas
+@Service
+public class ExportadorDeConsultas {
+
+    private static final String CONSULTAS_CON_NOMBRES = """
+            select c.id, c.fecha, c.medico_id, m.nombre, m.especialidad, c.paciente_id, p.nombre, c.motivo_cancelamiento
+            from consultas c
+            join medicos m on m.id = c.medico_id
+            join pacientes p on p.id = c.paciente_id
+            where c.fecha >= ? and c.fecha < ?
+            order by c.fecha, c.id
+            """;
+    private static final String[] COLUMNAS = {"id", "fecha", "idMedico", "medico", "especialidad", "idPaciente",
+            "paciente", "motivoCancelamiento"};
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    //Integer.MIN_VALUE es el modo streaming de Connector/J: las filas llegan de a una solo en esta sentencia, sin
+    //useCursorFetch en la URL, que pasaria a server-side prepared statements todas las sentencias del pool. Mientras
+    //dura el streaming la conexion no acepta otra sentencia. Con otro driver (H2) se indica un tamanio positivo
+    @Value("${api.consultas.exportacion.fetch-size:-2147483648}")
+    private int fetchSize;
+
+    public void validarRango(LocalDate desde, LocalDate hasta) {
+        if (hasta.isBefore(desde)) {
+            throw new ValidacionException("Rango de exportacion invalido", "La fecha final no puede ser anterior a la inicial");
+        }
+    }
+
+    //fechas inclusive; la conexion queda tomada mientras dura la exportacion
+    @Transactional(readOnly = true)
+    public void exportar(LocalDate desde, LocalDate hasta, FormatoExportacion formato, OutputStream salida) throws IOException {
+        validarRango(desde, hasta);
+        try (var escritor = formato == FormatoExportacion.CSV ? new EscritorCsv(salida) : new EscritorNdjson(salida)) {
+            jdbcTemplate.query(conexion -> {
+                var statement = conexion.prepareStatement(CONSULTAS_CON_NOMBRES, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                statement.setTimestamp(1, Timestamp.valueOf(desde.atStartOfDay()));
+                statement.setTimestamp(2, Timestamp.valueOf(hasta.plusDays(1).atStartOfDay()));
+                return statement;
+            }, escritor);
+        } catch (UncheckedIOException e) {
+            //el cliente corto la descarga
+            throw e.getCause();
+        }
+    }
+
+    private interface EscritorDeFilas extends RowCallbackHandler, Closeable {
+    }
+
+    private class EscritorNdjson implements EscritorDeFilas {
+
+        private final JsonGenerator json;
+
+        EscritorNdjson(OutputStream salida) throws IOException {
+            json = objectMapper.getFactory().createGenerator(salida);
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void processRow(ResultSet fila) throws SQLException {
+            try {
+                json.writeStartObject();
+                json.writeNumberField(COLUMNAS[0], fila.getLong(1));
+                json.writeStringField(COLUMNAS[1], formatear(fila.getTimestamp(2)));
+                json.writeNumberField(COLUMNAS[2], fila.getLong(3));
+                json.writeStringField(COLUMNAS[3], fila.getString(4));
+                json.writeStringField(COLUMNAS[4], fila.getString(5));
+                json.writeNumberField(COLUMNAS[5], fila.getLong(6));
+                json.writeStringField(COLUMNAS[6], fila.getString(7));
+                json.writeStringField(COLUMNAS[7], fila.getString(8));
+                json.writeEndObject();
+                json.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            json.close();
+        }
+    }
+
+    private static class EscritorCsv implements EscritorDeFilas {
+
+        private final BufferedWriter csv;
+
+        EscritorCsv(OutputStream salida) throws IOException {
+            csv = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+            csv.write(String.join(",", COLUMNAS));
+            csv.write("\r\n");
+        }
+
+        @Override
+        public void processRow(ResultSet fila) throws SQLException {
+            try {
+                csv.write(Long.toString(fila.getLong(1)));
+                csv.write(',');
+                csv.write(formatear(fila.getTimestamp(2)));
+                csv.write(',');
+                csv.write(Long.toString(fila.getLong(3)));
+                csv.write(',');
+                escribirTexto(fila.getString(4));
+                csv.write(',');
+                escribirTexto(fila.getString(5));
+                csv.write(',');
+                csv.write(Long.toString(fila.getLong(6)));
+                csv.write(',');
+                escribirTexto(fila.getString(7));
+                csv.write(',');
+                escribirTexto(fila.getString(8));
+                csv.write("\r\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        //RFC 4180: entre comillas si trae separador, comillas o saltos de linea; las comillas se duplican
+        private void escribirTexto(String valor) throws IOException {
+            if (valor == null) {
+                return;
+            }
+            if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+                csv.write(valor);
+                return;
+            }
+            csv.write('"');
+            csv.write(valor.replace("\"", "\"\""));
+            csv.write('"');
+        }
+
+        //no cierra la salida del servlet, solo vacia el buffer
+        @Override
+        public void close() throws IOException {
+            csv.flush();
+        }
+    }
+
+    private static String formatear(Timestamp fecha) {
+        return DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(fecha.toLocalDateTime());
+    }
+}
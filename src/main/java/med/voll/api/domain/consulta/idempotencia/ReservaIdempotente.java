@@ -0,0 +1,183 @@
+package med.voll.api.domain.consulta.idempotencia;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import med.voll.api.domain.ValidacionException;
+import med.voll.api.domain.consulta.DatosDetalleConsulta;
+import med.voll.api.domain.consulta.DatosReservaConsulta;
+import med.voll.api.domain.consulta.ReservaDeConsultas;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Reserva con Idempotency-Key: un reintento del cliente con la misma clave devuelve la consulta ya reservada sin correr
+//los validadores. Se busca primero en un cache acotado en memoria y despues en claves_idempotencia, que se escribe en
+//la misma transaccion que la consulta. Los reintentos simultaneos en esta instancia esperan a la primera peticion;
+//entre instancias decide la clave primaria de la tabla y la reserva perdedora se deshace con su transaccion
+@Service
+public class ReservaIdempotente implements MeterBinder {
+
+    private static final int LARGO_MAXIMO = 100;
+    private static final String BUSCAR_CLAVE = """
+            select consulta_id, medico_id, paciente_id, fecha from claves_idempotencia
+            where usuario = ? and clave = ? and creado >= ?
+            """;
+    private static final String INSERT_CLAVE = """
+            insert into claves_idempotencia(usuario, clave, consulta_id, medico_id, paciente_id, fecha, creado)
+            values (?, ?, ?, ?, ?, ?, ?)
+            """;
+    //una clave vencida que la purga todavia no borro se reutiliza en su misma fila
+    private static final String RENOVAR_CLAVE_VENCIDA = """
+            update claves_idempotencia set consulta_id = ?, medico_id = ?, paciente_id = ?, fecha = ?, creado = ?
+            where usuario = ? and clave = ? and creado < ?
+            """;
+    private static final String PURGAR_CLAVES = "delete from claves_idempotencia where creado < ?";
+
+    @Autowired
+    private ReservaDeConsultas reserva;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Clock reloj;
+
+    private final TransactionTemplate transaccion;
+    private final Duration vigencia;
+    private final Cache<Llave, DatosDetalleConsulta> cache;
+    //primera peticion de cada clave que todavia no termino
+    private final Map<Llave, CompletableFuture<DatosDetalleConsulta>> enCurso = new ConcurrentHashMap<>();
+
+    public ReservaIdempotente(PlatformTransactionManager transactionManager,
+                              @Value("${api.consultas.idempotencia.vigencia:PT24H}") Duration vigencia,
+                              @Value("${api.consultas.idempotencia.cache.maximo:10000}") long maximo) {
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.vigencia = vigencia;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximo)
+                .expireAfterWrite(vigencia)
+                .recordStats()
+                .build();
+    }
+
+    //sin clave es una reserva comun
+    public DatosDetalleConsulta reservar(String usuario, String clave, DatosReservaConsulta datos) {
+        if (clave == null) {
+            return reserva.reservar(datos);
+        }
+        if (clave.isBlank() || clave.length() > LARGO_MAXIMO) {
+            throw new ValidacionException("Idempotency-Key invalida", "La Idempotency-Key debe tener entre 1 y " + LARGO_MAXIMO + " caracteres");
+        }
+        var llave = new Llave(usuario, clave);
+        var guardada = cache.getIfPresent(llave);
+        if (guardada != null) {
+            return verificar(guardada, datos);
+        }
+
+        var propia = new CompletableFuture<DatosDetalleConsulta>();
+        var previa = enCurso.putIfAbsent(llave, propia);
+        if (previa != null) {
+            return verificar(esperar(previa), datos);
+        }
+        try {
+            var detalle = reservarUnaVez(llave, datos);
+            propia.complete(detalle);
+            return verificar(detalle, datos);
+        } catch (RuntimeException e) {
+            propia.completeExceptionally(e);
+            throw e;
+        } finally {
+            enCurso.remove(llave);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${api.consultas.idempotencia.intervalo-purga:3600000}")
+    public void purgarVencidas() {
+        jdbcTemplate.update(PURGAR_CLAVES, Timestamp.valueOf(LocalDateTime.now(reloj).minus(vigencia)));
+    }
+
+    //aciertos, fallos, desalojos y tamanio como cache.* con cache=idempotencia
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "idempotencia");
+    }
+
+    private DatosDetalleConsulta reservarUnaVez(Llave llave, DatosReservaConsulta datos) {
+        var registrada = buscar(llave);
+        if (registrada.isPresent()) {
+            cache.put(llave, registrada.get());
+            return registrada.get();
+        }
+        try {
+            var detalle = transaccion.execute(estado -> {
+                var nueva = reserva.reservar(datos);
+                var ahora = LocalDateTime.now(reloj);
+                if (jdbcTemplate.update(RENOVAR_CLAVE_VENCIDA, nueva.id(), nueva.idMedico(), nueva.idPaciente(), Timestamp.valueOf(nueva.fecha()),
+                        Timestamp.valueOf(ahora), llave.usuario(), llave.clave(), Timestamp.valueOf(ahora.minus(vigencia))) == 0) {
+                    jdbcTemplate.update(INSERT_CLAVE, llave.usuario(), llave.clave(), nueva.id(), nueva.idMedico(), nueva.idPaciente(),
+                            Timestamp.valueOf(nueva.fecha()), Timestamp.valueOf(ahora));
+                }
+                return nueva;
+            });
+            cache.put(llave, detalle);
+            return detalle;
+        } catch (DuplicateKeyException e) {
+            //otra instancia confirmo primero con la misma clave
+            var ganadora = buscar(llave).orElseThrow(() -> e);
+            cache.put(llave, ganadora);
+            return ganadora;
+        }
+    }
+
+    private Optional<DatosDetalleConsulta> buscar(Llave llave) {
+        var desde = Timestamp.valueOf(LocalDateTime.now(reloj).minus(vigencia));
+        return jdbcTemplate.query(BUSCAR_CLAVE, this::leer, llave.usuario(), llave.clave(), desde).stream().findFirst();
+    }
+
+    //la clave no puede devolver la reserva de otro paciente, horario o medico
+    private static DatosDetalleConsulta verificar(DatosDetalleConsulta detalle, DatosReservaConsulta datos) {
+        if (!detalle.idPaciente().equals(datos.idPaciente()) || !detalle.fecha().equals(datos.fecha())
+                || (datos.idMedico() != null && !datos.idMedico().equals(detalle.idMedico()))) {
+            throw new ValidacionException("Idempotency-Key reutilizada", "La Idempotency-Key ya se uso para otra reserva");
+        }
+        return detalle;
+    }
+
+    private static DatosDetalleConsulta esperar(CompletableFuture<DatosDetalleConsulta> previa) {
+        try {
+            return previa.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    private DatosDetalleConsulta leer(ResultSet fila, int numero) throws SQLException {
+        return new DatosDetalleConsulta(fila.getLong(1), fila.getLong(2), fila.getLong(3), fila.getTimestamp(4).toLocalDateTime());
+    }
+
+    private record Llave(String usuario, String clave) {
+    }
+}
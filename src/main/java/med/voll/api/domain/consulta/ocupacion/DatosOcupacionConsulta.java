@@ -0,0 +1,6 @@
+package med.voll.api.domain.consulta.ocupacion;
+
+import java.time.LocalDateTime;
+
+public record DatosOcupacionConsulta(Long id, Long idMedico, Long idPaciente, LocalDateTime fecha) {
+}
@@ -0,0 +1,103 @@
+package med.voll.api.domain.consulta.ocupacion;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//Bitmap de horas reservadas por medico sobre un horizonte de dias desde 'inicio': una palabra por dia,
+//bit h encendido = consulta a las h:00. Las lecturas no bloquean; las escrituras solo se excluyen con
+//la reconstruccion diaria que corre el horizonte
+class HorasOcupadas {
+
+    private final int dias;
+    private final ReadWriteLock candado = new ReentrantReadWriteLock();
+    private volatile Agendas agendas;
+
+    HorasOcupadas(int dias, LocalDate inicio) {
+        this.dias = dias;
+        this.agendas = new Agendas(inicio, new ConcurrentHashMap<>());
+    }
+
+    LocalDate fin() {
+        return agendas.inicio().plusDays(dias - 1);
+    }
+
+    long mascara(Long idMedico, LocalDate dia) {
+        var actuales = agendas;
+        var indice = indice(actuales, dia);
+        var palabras = actuales.porMedico().get(idMedico);
+        return indice < 0 || palabras == null ? 0L : palabras.get(indice);
+    }
+
+    //mascaras de varios medicos sobre una misma foto del bitmap, con el indice del dia calculado una sola vez
+    void mascaras(List<Long> medicos, LocalDate dia, long[] destino) {
+        var actuales = agendas;
+        var indice = indice(actuales, dia);
+        for (var i = 0; i < medicos.size(); i++) {
+            var palabras = indice < 0 ? null : actuales.porMedico().get(medicos.get(i));
+            destino[i] = palabras == null ? 0L : palabras.get(indice);
+        }
+    }
+
+    void marcar(Long idMedico, LocalDateTime fecha) {
+        modificar(idMedico, fecha, true);
+    }
+
+    void desmarcar(Long idMedico, LocalDateTime fecha) {
+        modificar(idMedico, fecha, false);
+    }
+
+    //reemplaza el bitmap completo a partir de los horarios vigentes
+    void reconstruir(LocalDate inicio, Collection<OcupacionDeAgendas.HorarioMedico> horarios) {
+        candado.writeLock().lock();
+        try {
+            var nuevas = new Agendas(inicio, new ConcurrentHashMap<>());
+            horarios.forEach(h -> aplicar(nuevas, h.idMedico(), h.fecha(), true));
+            agendas = nuevas;
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    private void modificar(Long idMedico, LocalDateTime fecha, boolean ocupar) {
+        candado.readLock().lock();
+        try {
+            aplicar(agendas, idMedico, fecha, ocupar);
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    private void aplicar(Agendas destino, Long idMedico, LocalDateTime fecha, boolean ocupar) {
+        //solo entran los horarios en punto, que son los que ofrece la busqueda de disponibilidad
+        if (fecha.getMinute() != 0 || fecha.getSecond() != 0 || fecha.getNano() != 0) {
+            return;
+        }
+        var indice = indice(destino, fecha.toLocalDate());
+        if (indice < 0) {
+            return;
+        }
+        var bit = 1L << fecha.getHour();
+        var palabras = destino.porMedico().computeIfAbsent(idMedico, id -> new AtomicLongArray(dias));
+        if (ocupar) {
+            palabras.getAndAccumulate(indice, bit, (actual, b) -> actual | b);
+        } else {
+            palabras.getAndAccumulate(indice, ~bit, (actual, b) -> actual & b);
+        }
+    }
+
+    private int indice(Agendas actuales, LocalDate dia) {
+        var desplazamiento = ChronoUnit.DAYS.between(actuales.inicio(), dia);
+        return desplazamiento < 0 || desplazamiento >= dias ? -1 : (int) desplazamiento;
+    }
+
+    private record Agendas(LocalDate inicio, Map<Long, AtomicLongArray> porMedico) {
+    }
+}
@@ -0,0 +1,160 @@
+package med.voll.api.domain.consulta.ocupacion;
+
+import jakarta.annotation.PostConstruct;
+import med.voll.api.domain.consulta.Consulta;
+import med.voll.api.domain.consulta.ConsultaRepository;
+import med.voll.api.infra.transacciones.TrasConfirmar;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Indice en memoria de los horarios ocupados por medico y de los dias reservados por paciente.
+//Solo contiene consultas no canceladas desde el dia de hoy; la restriccion unica de la BD sigue siendo la red de seguridad
+@Component
+public class OcupacionDeAgendas {
+
+    @Autowired
+    private ConsultaRepository repository;
+
+    @Autowired
+    private Clock reloj;
+
+    private final Map<Long, DatosOcupacionConsulta> consultas = new ConcurrentHashMap<>();
+    private final Map<HorarioMedico, Integer> horariosMedicos = new ConcurrentHashMap<>();
+    private final Map<DiaPaciente, Integer> diasPacientes = new ConcurrentHashMap<>();
+    //horarios tomados por reservas en curso, desde que se eligen hasta que su transaccion termina
+    private final Map<HorarioMedico, Boolean> reclamos = new ConcurrentHashMap<>();
+
+    //dias hacia adelante que cubre el bitmap usado por la busqueda de disponibilidad
+    @Value("${api.disponibilidad.horizonte-dias:90}")
+    private int horizonteDias;
+
+    private HorasOcupadas horasOcupadas;
+
+    //se carga antes de que el servidor acepte peticiones
+    @PostConstruct
+    public void cargar() {
+        var hoy = LocalDate.now(reloj);
+        if (horasOcupadas == null) {
+            horasOcupadas = new HorasOcupadas(horizonteDias, hoy);
+        }
+        repository.buscarOcupacionDesde(hoy.atStartOfDay()).forEach(this::agregar);
+    }
+
+    public boolean medicoOcupado(Long idMedico, LocalDateTime fecha) {
+        if (idMedico == null) {
+            return false;
+        }
+        var horario = new HorarioMedico(idMedico, fecha);
+        return horariosMedicos.containsKey(horario) || reclamos.containsKey(horario);
+    }
+
+    //Toma el horario para la transaccion actual sin locks: de dos reservas concurrentes solo una gana el putIfAbsent.
+    //El reclamo se suelta al terminar la transaccion; si confirma, afterCommit ya paso el horario al indice
+    public boolean reclamar(Long idMedico, LocalDateTime fecha) {
+        var horario = new HorarioMedico(idMedico, fecha);
+        if (horariosMedicos.containsKey(horario) || reclamos.putIfAbsent(horario, Boolean.TRUE) != null) {
+            return false;
+        }
+        //otra reserva pudo confirmar entre la primera lectura y el putIfAbsent
+        if (horariosMedicos.containsKey(horario)) {
+            reclamos.remove(horario);
+            return false;
+        }
+        TrasConfirmar.alTerminar(() -> reclamos.remove(horario));
+        return true;
+    }
+
+    public boolean pacienteConConsultaEnElDia(Long idPaciente, LocalDate dia) {
+        return diasPacientes.containsKey(new DiaPaciente(idPaciente, dia));
+    }
+
+    //solo consultas activas desde hoy
+    public Long medicoDeConsulta(Long idConsulta) {
+        var ocupacion = consultas.get(idConsulta);
+        return ocupacion == null ? null : ocupacion.idMedico();
+    }
+
+    //bit h encendido = el medico tiene una consulta a las h:00 de ese dia
+    public long horasOcupadas(Long idMedico, LocalDate dia) {
+        return horasOcupadas.mascara(idMedico, dia);
+    }
+
+    public void horasOcupadas(List<Long> medicos, LocalDate dia, long[] destino) {
+        horasOcupadas.mascaras(medicos, dia, destino);
+    }
+
+    public LocalDate finDelHorizonte() {
+        return horasOcupadas.fin();
+    }
+
+    //se aplica cuando la transaccion confirma, para no dejar horarios fantasma si hay rollback
+    public void registrar(Consulta consulta) {
+        registrar(new DatosOcupacionConsulta(consulta.getId(), consulta.getMedico().getId(),
+                consulta.getPaciente().getId(), consulta.getFecha()));
+    }
+
+    public void registrar(DatosOcupacionConsulta ocupacion) {
+        TrasConfirmar.ejecutar(() -> agregar(ocupacion));
+    }
+
+    public void liberar(Long idConsulta) {
+        TrasConfirmar.ejecutar(() -> quitar(idConsulta));
+    }
+
+    //las consultas de dias pasados ya no pueden chocar con una reserva nueva; el bitmap corre su horizonte a hoy
+    @Scheduled(cron = "0 0 3 * * *")
+    public void purgarDiasPasados() {
+        var hoy = LocalDate.now(reloj);
+        consultas.values().stream()
+                .filter(c -> c.fecha().isBefore(hoy.atStartOfDay()))
+                .map(DatosOcupacionConsulta::id)
+                .toList()
+                .forEach(this::quitar);
+        horasOcupadas.reconstruir(hoy, horariosMedicos.keySet());
+    }
+
+    private void agregar(DatosOcupacionConsulta ocupacion) {
+        if (consultas.putIfAbsent(ocupacion.id(), ocupacion) != null) {
+            return;
+        }
+        //el bitmap se actualiza dentro del compute para quedar atomico con el contador del horario
+        horariosMedicos.compute(new HorarioMedico(ocupacion.idMedico(), ocupacion.fecha()), (horario, n) -> {
+            if (n == null) {
+                horasOcupadas.marcar(horario.idMedico(), horario.fecha());
+                return 1;
+            }
+            return n + 1;
+        });
+        diasPacientes.merge(new DiaPaciente(ocupacion.idPaciente(), ocupacion.fecha().toLocalDate()), 1, Integer::sum);
+    }
+
+    private void quitar(Long idConsulta) {
+        var ocupacion = consultas.remove(idConsulta);
+        if (ocupacion == null) {
+            return;
+        }
+        horariosMedicos.computeIfPresent(new HorarioMedico(ocupacion.idMedico(), ocupacion.fecha()), (horario, n) -> {
+            if (n > 1) {
+                return n - 1;
+            }
+            horasOcupadas.desmarcar(horario.idMedico(), horario.fecha());
+            return null;
+        });
+        diasPacientes.computeIfPresent(new DiaPaciente(ocupacion.idPaciente(), ocupacion.fecha().toLocalDate()), (k, n) -> n > 1 ? n - 1 : null);
+    }
+
+    record HorarioMedico(Long idMedico, LocalDateTime fecha) {
+    }
+
+    private record DiaPaciente(Long idPaciente, LocalDate dia) {
+    }
+}
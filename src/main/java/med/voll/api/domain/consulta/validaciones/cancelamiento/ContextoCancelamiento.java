@@ -0,0 +1,12 @@
+package med.voll.api.domain.consulta.validaciones.cancelamiento;
+
+import med.voll.api.domain.consulta.MotivoCancelamiento;
+
+import java.time.LocalDateTime;
+
+//Estado de la consulta leido solo cuando el UPDATE condicional no cancelo nada, para explicar el motivo
+public record ContextoCancelamiento(
+        Long idMedico,
+        LocalDateTime fecha,
+        MotivoCancelamiento motivoCancelamiento) {
+}
@@ -3,5 +3,5 @@ package med.voll.api.domain.consulta.validaciones.cancelamiento;
 import med.voll.api.domain.consulta.DatosCancelamientoConsulta;
 
 public interface ValidadorCancelamientoDeConsulta {
-    void validar(DatosCancelamientoConsulta datos);
+    void validar(DatosCancelamientoConsulta datos, ContextoCancelamiento contexto);
 }
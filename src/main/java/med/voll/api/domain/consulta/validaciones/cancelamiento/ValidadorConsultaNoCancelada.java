@@ -0,0 +1,15 @@
+package med.voll.api.domain.consulta.validaciones.cancelamiento;
+
+import med.voll.api.domain.ValidacionException;
+import med.voll.api.domain.consulta.DatosCancelamientoConsulta;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ValidadorConsultaNoCancelada implements ValidadorCancelamientoDeConsulta {
+
+    public void validar(DatosCancelamientoConsulta datos, ContextoCancelamiento contexto) {
+        if (contexto.motivoCancelamiento() != null) {
+            throw new ValidacionException("¡La consulta ya fue cancelada!");
+        }
+    }
+}
@@ -1,28 +1,27 @@
 package med.voll.api.domain.consulta.validaciones.cancelamiento;
 
 import med.voll.api.domain.ValidacionException;
-import med.voll.api.domain.consulta.ConsultaRepository;
+import med.voll.api.domain.consulta.AsignadorDeMedicos;
 import med.voll.api.domain.consulta.DatosCancelamientoConsulta;
+import med.voll.api.domain.consulta.calendario.CalendarioDeAtencion;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.time.Duration;
-import java.time.LocalDateTime;
-
 @Component
 public class ValidadorHorarioConAnticipacionCancelamiento implements ValidadorCancelamientoDeConsulta {
 
     @Autowired
-    private ConsultaRepository repository;
+    private CalendarioDeAtencion calendario;
 
+    @Autowired
+    private AsignadorDeMedicos asignador;
 
-    public void validar(DatosCancelamientoConsulta datos) {
-        var consulta = repository.getReferenceById(datos.idConsulta());
-        var ahora = LocalDateTime.now();
-        var diferenciaEnHoras = Duration.between(ahora, consulta.getFecha()).toHours();
+    public void validar(DatosCancelamientoConsulta datos, ContextoCancelamiento contexto) {
+        var anticipacion = calendario.anticipacionCancelamiento(contexto.idMedico(), asignador.especialidadDe(contexto.idMedico()));
 
-        if (diferenciaEnHoras < 24) {
-            throw new ValidacionException("¡La consulta solo puede ser cancelada con anticipación mínima de 24 horas!");
+        if (contexto.fecha().isBefore(calendario.ahora().plus(anticipacion))) {
+            throw new ValidacionException("Cancelamiento sin anticipacion minima",
+                    "¡La consulta solo puede ser cancelada con anticipación mínima de " + anticipacion.toHours() + " horas!");
         }
     }
 }
@@ -0,0 +1,18 @@
+package med.voll.api.domain.consulta.validaciones.reserva;
+
+//Datos de una reserva cargados una sola vez y compartidos por todos los validadores.
+//Un flag de actividad null indica que el paciente o medico no existe
+public record ContextoReserva(
+        Boolean pacienteActivo,
+        Boolean medicoActivo,
+        boolean medicoOcupado,
+        boolean pacienteConConsultaEnElDia) {
+
+    public boolean pacienteExiste() {
+        return pacienteActivo != null;
+    }
+
+    public boolean medicoExiste() {
+        return medicoActivo != null;
+    }
+}
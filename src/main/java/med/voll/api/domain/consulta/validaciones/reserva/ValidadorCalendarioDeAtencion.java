@@ -0,0 +1,24 @@
+package med.voll.api.domain.consulta.validaciones.reserva;
+
+import med.voll.api.domain.consulta.AsignadorDeMedicos;
+import med.voll.api.domain.consulta.DatosReservaConsulta;
+import med.voll.api.domain.consulta.calendario.CalendarioDeAtencion;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+//Horario de atencion, feriados y anticipacion minima en una sola evaluacion del calendario compilado.
+//Sin medico elegido se validan las reglas de la clinica; las del medico se aplican al asignarlo
+@Component
+public class ValidadorCalendarioDeAtencion implements ValidadorDeConsultas {
+
+    @Autowired
+    private CalendarioDeAtencion calendario;
+
+    @Autowired
+    private AsignadorDeMedicos asignador;
+
+    public void validar(DatosReservaConsulta datos) {
+        var idMedico = datos.idMedico();
+        calendario.validarReserva(idMedico, idMedico == null ? null : asignador.especialidadDe(idMedico), datos.fecha());
+    }
+}
@@ -4,4 +4,9 @@ import med.voll.api.domain.consulta.DatosReservaConsulta;
 
 public interface ValidadorDeConsultas {
     void validar(DatosReservaConsulta datos);
-}
\ No newline at end of file
+
+    //los validadores que lo sobreescriben leen del contexto precargado en lugar de ir a la BD
+    default void validar(DatosReservaConsulta datos, ContextoReserva contexto) {
+        validar(datos);
+    }
+}
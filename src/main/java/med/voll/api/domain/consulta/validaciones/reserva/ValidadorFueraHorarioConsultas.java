@@ -1,21 +0,0 @@
-package med.voll.api.domain.consulta.validaciones.reserva;
-
-import med.voll.api.domain.ValidacionException;
-import med.voll.api.domain.consulta.DatosReservaConsulta;
-import org.springframework.stereotype.Component;
-
-import java.time.DayOfWeek;
-
-@Component
-public class ValidadorFueraHorarioConsultas implements ValidadorDeConsultas{
-
-    public void validar(DatosReservaConsulta datos) {
-        var fechaConsulta = datos.fecha();
-        var domingo = fechaConsulta.getDayOfWeek().equals(DayOfWeek.SUNDAY);
-        var horarioAntesDeAperturaClinica = fechaConsulta.getHour() < 7;
-        var horarioDespuesDeCierreClinica = fechaConsulta.getHour() > 18;
-        if(domingo || horarioAntesDeAperturaClinica || horarioDespuesDeCierreClinica) {
-            throw new ValidacionException("Horario selecionado fuera del horario de atendimiento de la clinica.");
-        }
-    }
-}
\ No newline at end of file
@@ -22,4 +22,14 @@ public class ValidadorMedicoActivo implements ValidadorDeConsultas{
             throw new ValidacionException("Consulta no puede ser reservada con medico excluido");
         }
     }
+
+    @Override
+    public void validar(DatosReservaConsulta datos, ContextoReserva contexto) {
+        if(datos.idMedico() == null) {
+            return;
+        }
+        if(!Boolean.TRUE.equals(contexto.medicoActivo())){
+            throw new ValidacionException("Consulta no puede ser reservada con medico excluido");
+        }
+    }
 }
\ No newline at end of file
@@ -1,8 +1,8 @@
 package med.voll.api.domain.consulta.validaciones.reserva;
 
 import med.voll.api.domain.ValidacionException;
-import med.voll.api.domain.consulta.ConsultaRepository;
 import med.voll.api.domain.consulta.DatosReservaConsulta;
+import med.voll.api.domain.consulta.ocupacion.OcupacionDeAgendas;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -10,12 +10,19 @@ import org.springframework.stereotype.Component;
 public class ValidadorMedicoConOtraConsultaEnElMismoHorario implements ValidadorDeConsultas{
 
     @Autowired
-    private ConsultaRepository repository;
+    private OcupacionDeAgendas ocupacion;
 
     public void validar(DatosReservaConsulta datos){
-        var medicoTieneOtraConsultaEnElMismoHorario = repository.existsByMedicoIdAndFecha(datos.idMedico(), datos.fecha());
+        var medicoTieneOtraConsultaEnElMismoHorario = ocupacion.medicoOcupado(datos.idMedico(), datos.fecha());
         if(medicoTieneOtraConsultaEnElMismoHorario){
             throw new ValidacionException("Medico ya tiene otra consulta en esa misma fecha y hora");
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public void validar(DatosReservaConsulta datos, ContextoReserva contexto){
+        if(contexto.medicoOcupado()){
+            throw new ValidacionException("Medico ya tiene otra consulta en esa misma fecha y hora");
+        }
+    }
+}
@@ -18,4 +18,11 @@ public class ValidadorPacienteActivo implements ValidadorDeConsultas{
             throw new ValidacionException("Consulta no puede ser reservada con paciente excluido");
         }
     }
+
+    @Override
+    public void validar(DatosReservaConsulta datos, ContextoReserva contexto){
+        if(!Boolean.TRUE.equals(contexto.pacienteActivo())){
+            throw new ValidacionException("Consulta no puede ser reservada con paciente excluido");
+        }
+    }
 }
\ No newline at end of file
@@ -1,8 +1,8 @@
 package med.voll.api.domain.consulta.validaciones.reserva;
 
 import med.voll.api.domain.ValidacionException;
-import med.voll.api.domain.consulta.ConsultaRepository;
 import med.voll.api.domain.consulta.DatosReservaConsulta;
+import med.voll.api.domain.consulta.ocupacion.OcupacionDeAgendas;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -10,14 +10,19 @@ import org.springframework.stereotype.Component;
 public class ValidadorPacienteSinOtraConsultaEnElMismoDia implements ValidadorDeConsultas{
 
     @Autowired
-    private ConsultaRepository repository;
+    private OcupacionDeAgendas ocupacion;
 
     public void validar(DatosReservaConsulta datos){
-        var primerHorario = datos.fecha().withHour(7);
-        var ultimoHorario = datos.fecha().withHour(18);
-        var pacienteTieneOtraConsultaEnElDia = repository.existsByPacienteIdAndFechaBetween(datos.idPaciente(), primerHorario, ultimoHorario);
+        var pacienteTieneOtraConsultaEnElDia = ocupacion.pacienteConConsultaEnElDia(datos.idPaciente(), datos.fecha().toLocalDate());
         if(pacienteTieneOtraConsultaEnElDia) {
             throw new ValidacionException("Paciente ya tiene una consulta reservada para ese dia");
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public void validar(DatosReservaConsulta datos, ContextoReserva contexto){
+        if(contexto.pacienteConConsultaEnElDia()) {
+            throw new ValidacionException("Paciente ya tiene una consulta reservada para ese dia");
+        }
+    }
+}
@@ -5,6 +5,9 @@ public record DatosListadoMedico(Long id, String nombre, String especialidad, St
     public DatosListadoMedico(Medico medico) {
         this(medico.getId(), medico.getNombre(), medico.getEspecialidad().toString(), medico.getDocumento(), medico.getEmail());
     }
-}
-
 
+    // usado por las queries con "select new" para no cargar la entidad completa
+    public DatosListadoMedico(Long id, String nombre, Especialidad especialidad, String documento, String email) {
+        this(id, nombre, especialidad.toString(), documento, email);
+    }
+}
@@ -4,4 +4,11 @@ import med.voll.api.domain.direccion.DatosDireccion;
 
 public record DatosRespuestaMedico(Long id, String nombre, String email, String telefono, String documento,
                                    DatosDireccion direccion) {
+
+    // usado por las queries con "select new" para no cargar la entidad completa
+    public DatosRespuestaMedico(Long id, String nombre, String email, String telefono, Especialidad especialidad,
+                                String calle, String distrito, String ciudad, String numero, String complemento) {
+        this(id, nombre, email, telefono, especialidad.toString(),
+                new DatosDireccion(calle, distrito, ciudad, numero, complemento));
+    }
 }
@@ -1,21 +1,67 @@
 package med.voll.api.domain.medico;
 
+import jakarta.persistence.QueryHint;
+import med.voll.api.domain.DatosActividad;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface MedicoRepository extends JpaRepository<Medico, Long> {
 
     Page<Medico> findByActivoTrue(Pageable paginacion);
 
+    // Query del listado: proyecta directo al DTO, sin entidades en el contexto de persistencia
+    @Query(value = """
+        SELECT new med.voll.api.domain.medico.DatosListadoMedico(m.id, m.nombre, m.especialidad, m.documento, m.email)
+        FROM Medico m
+        WHERE m.activo = true
+        """,
+        countQuery = "SELECT count(m) FROM Medico m WHERE m.activo = true")
+    Page<DatosListadoMedico> listarActivos(Pageable paginacion);
+
+    // Query de paginacion por cursor: busca a partir de (nombre, id) sin OFFSET ni count
+    @Query("""
+        SELECT new med.voll.api.domain.medico.DatosListadoMedico(m.id, m.nombre, m.especialidad, m.documento, m.email)
+        FROM Medico m
+        WHERE m.activo = true
+        AND (m.nombre > :nombre OR (m.nombre = :nombre AND m.id > :id))
+        ORDER BY m.nombre, m.id
+        """)
+    List<DatosListadoMedico> buscarActivosDespuesDe(@Param("nombre") String nombre, @Param("id") Long id, Limit limite);
+
+    // Query del detalle de un medico proyectada al DTO de respuesta
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("""
+        SELECT new med.voll.api.domain.medico.DatosRespuestaMedico(m.id, m.nombre, m.email, m.telefono, m.especialidad,
+            m.direccion.calle, m.direccion.distrito, m.direccion.ciudad, m.direccion.numero, m.direccion.complemento)
+        FROM Medico m
+        WHERE m.id = :id
+        """)
+    Optional<DatosRespuestaMedico> buscarDatosRespuesta(@Param("id") Long id);
+
     // Query para verificar si un médico está activo
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT m.activo FROM Medico m WHERE m.id = :idMedico")
     Boolean findActivoById(@Param("idMedico") Long idMedico);
 
+    // Query para cargar los medicos activos por especialidad del asignador
+    @Query("SELECT new med.voll.api.domain.medico.DatosEspecialidadMedico(m.id, m.especialidad) FROM Medico m WHERE m.activo = true")
+    List<DatosEspecialidadMedico> buscarActivosConEspecialidad();
+
+    // Query para los flags de actividad de varios medicos en una sola ida a la BD
+    @Query("SELECT new med.voll.api.domain.DatosActividad(m.id, m.activo) FROM Medico m WHERE m.id IN :ids")
+    List<DatosActividad> buscarActividad(@Param("ids") Collection<Long> ids);
+
     // Query para elegir médico aleatorio disponible (con filtro de cancelamiento)
     @Query("""
         SELECT m FROM Medico m
@@ -1,12 +1,47 @@
 package med.voll.api.domain.paciente;
 
+import jakarta.persistence.QueryHint;
+import med.voll.api.domain.DatosActividad;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface PacienteRepository extends JpaRepository<Paciente, Long> {
     Page<Paciente> findAllByActivoTrue(Pageable paginacion);
+
+    @Query(value = """
+            select new med.voll.api.domain.paciente.DatosListadoPaciente(p.id, p.nombre, p.email, p.documento)
+            from Paciente p
+            where
+            p.activo = true
+            """,
+            countQuery = """
+            select count(p)
+            from Paciente p
+            where
+            p.activo = true
+            """)
+    Page<DatosListadoPaciente> listarActivos(Pageable paginacion);
+
+    @Query("""
+            select new med.voll.api.domain.paciente.DatosListadoPaciente(p.id, p.nombre, p.email, p.documento)
+            from Paciente p
+            where
+            p.activo = true
+            and (p.nombre > :nombre or (p.nombre = :nombre and p.id > :id))
+            order by p.nombre, p.id
+            """)
+    List<DatosListadoPaciente> buscarActivosDespuesDe(@Param("nombre") String nombre, @Param("id") Long id, Limit limite);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("""
             select p.activo
             from Paciente p
@@ -14,4 +49,12 @@ public interface PacienteRepository extends JpaRepository<Paciente, Long> {
             p.id = :idPaciente
             """)
     boolean findActivoById(Long idPaciente);
+
+    @Query("""
+            select new med.voll.api.domain.DatosActividad(p.id, p.activo)
+            from Paciente p
+            where
+            p.id in :ids
+            """)
+    List<DatosActividad> buscarActividad(Collection<Long> ids);
 }
@@ -0,0 +1,63 @@
+package med.voll.api.infra.eventos;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import med.voll.api.domain.consulta.eventos.EventoDeConsulta;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.List;
+
+//Bandeja de salida transaccional: los eventos se insertan en eventos_outbox con la misma conexion y transaccion que
+//la reserva o el cancelamiento. Si la transaccion hace rollback el evento no existe; si confirma, DespachadorDeEventos
+//lo entrega despues sin que la peticion espere a ningun consumidor
+@Component
+public class BandejaDeSalida {
+
+    private static final String INSERT_EVENTO = """
+            insert into eventos_outbox(tipo, consulta_id, datos, creado, proximo_intento) values (?, ?, ?, ?, ?)
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Clock reloj;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publicar(EventoDeConsulta evento) {
+        var ahora = Timestamp.valueOf(LocalDateTime.now(reloj));
+        jdbcTemplate.update(INSERT_EVENTO, fila(evento, ahora));
+    }
+
+    //un solo batch para los eventos de una reserva por lote
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publicar(List<? extends EventoDeConsulta> eventos) {
+        if (eventos.isEmpty()) {
+            return;
+        }
+        var ahora = Timestamp.valueOf(LocalDateTime.now(reloj));
+        jdbcTemplate.batchUpdate(INSERT_EVENTO, eventos.stream().map(evento -> fila(evento, ahora)).toList());
+    }
+
+    static String tipo(Class<?> clase) {
+        return clase.getSimpleName();
+    }
+
+    private Object[] fila(EventoDeConsulta evento, Timestamp ahora) {
+        try {
+            return new Object[]{tipo(evento.getClass()), evento.idConsulta(), objectMapper.writeValueAsString(evento), ahora, ahora};
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el evento " + evento, e);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package med.voll.api.infra.eventos;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import med.voll.api.domain.consulta.eventos.ConsumidorDeEventos;
+import med.voll.api.domain.consulta.eventos.EventoDeConsulta;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+//Vacia eventos_outbox por lotes y entrega cada evento a todos los ConsumidorDeEventos, fuera de las peticiones.
+//Orden por consulta: solo se toma el evento pendiente mas antiguo de cada consulta, asi un cancelamiento nunca llega
+//antes que su reserva aunque la entrega de la reserva falle. Un evento fallido se reintenta con espera exponencial;
+//el entregado se borra. Con mas de una instancia despachando un evento podria entregarse dos veces.
+//Corre en un hilo propio y no en el de @Scheduled, que es uno solo y comparten las demas tareas periodicas
+@Component
+public class DespachadorDeEventos {
+
+    private static final Logger log = LoggerFactory.getLogger(DespachadorDeEventos.class);
+
+    private static final String PENDIENTES = """
+            select e.id, e.tipo, e.datos, e.creado, e.intentos
+            from eventos_outbox e
+            where e.proximo_intento <= ?
+            and not exists (select 1 from eventos_outbox p where p.consulta_id = e.consulta_id and p.id < e.id)
+            order by e.id
+            limit ?
+            """;
+    private static final String MAS_ANTIGUO = "select creado from eventos_outbox order by id limit 1";
+    private static final String BORRAR_EVENTO = "delete from eventos_outbox where id = ?";
+    private static final String REPROGRAMAR_EVENTO = """
+            update eventos_outbox set intentos = ?, proximo_intento = ?, ultimo_error = ? where id = ?
+            """;
+
+    private static final Map<String, Class<? extends EventoDeConsulta>> TIPOS = Arrays.stream(EventoDeConsulta.class.getPermittedSubclasses())
+            .collect(Collectors.toUnmodifiableMap(BandejaDeSalida::tipo, clase -> clase.asSubclass(EventoDeConsulta.class)));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Clock reloj;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired(required = false)
+    private List<ConsumidorDeEventos> consumidores = List.of();
+
+    @Value("${api.eventos.despacho.intervalo:500}")
+    private long intervalo;
+
+    @Value("${api.eventos.despacho.lote:200}")
+    private int lote;
+
+    @Value("${api.eventos.despacho.reintento-inicial:PT1S}")
+    private Duration reintentoInicial;
+
+    @Value("${api.eventos.despacho.reintento-maximo:PT10M}")
+    private Duration reintentoMaximo;
+
+    //desde que se publica (creado, antes de confirmar la transaccion) hasta la entrega, por tipo de evento
+    private Map<String, Timer> retrasos;
+    private Counter fallidos;
+    private final ScheduledExecutorService ejecutor = Executors.newSingleThreadScheduledExecutor(tarea -> {
+        var hilo = new Thread(tarea, "despacho-eventos");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+    //evita dos despachos simultaneos en la misma instancia si se llama a despachar fuera del ejecutor
+    private final AtomicBoolean despachando = new AtomicBoolean();
+    //segundos desde que se creo el evento pendiente mas antiguo, entregable o esperando reintento
+    private final AtomicLong antiguedad = new AtomicLong();
+
+    @PostConstruct
+    public void registrarMetricas() {
+        var timers = new HashMap<String, Timer>();
+        TIPOS.keySet().forEach(tipo -> timers.put(tipo, Timer.builder("voll.eventos.retraso")
+                .description("Tiempo entre la publicacion de un evento y su entrega a los consumidores")
+                .tag("tipo", tipo)
+                .register(registry)));
+        retrasos = Map.copyOf(timers);
+        fallidos = Counter.builder("voll.eventos.fallidos")
+                .description("Entregas de eventos que fallaron y quedaron para reintentar")
+                .register(registry);
+        Gauge.builder("voll.eventos.antiguedad", antiguedad, AtomicLong::get)
+                .description("Antiguedad en segundos del evento pendiente mas antiguo de la bandeja de salida")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    //recien con la aplicacion lista, cuando eventos_outbox ya existe
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        ejecutor.scheduleWithFixedDelay(this::despachar, intervalo, intervalo, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        ejecutor.shutdown();
+        ejecutor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    public void despachar() {
+        if (!despachando.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            //un lote completo indica que puede haber mas pendientes
+            int tomados;
+            do {
+                tomados = despacharLote();
+            } while (tomados == lote);
+            medirAntiguedad();
+        } catch (RuntimeException exception) {
+            log.error("No se pudo despachar la bandeja de eventos", exception);
+        } finally {
+            despachando.set(false);
+        }
+    }
+
+    //cantidad de eventos tomados, entregados o no
+    int despacharLote() {
+        var pendientes = jdbcTemplate.query(PENDIENTES, this::leer, Timestamp.valueOf(LocalDateTime.now(reloj)), lote);
+        var entregados = new ArrayList<Object[]>();
+        var reprogramados = new ArrayList<Object[]>();
+        for (var pendiente : pendientes) {
+            try {
+                entregar(pendiente);
+                entregados.add(new Object[]{pendiente.id()});
+                retrasos.get(pendiente.tipo()).record(Duration.between(pendiente.creado(), LocalDateTime.now(reloj)));
+            } catch (Exception exception) {
+                var intentos = pendiente.intentos() + 1;
+                fallidos.increment();
+                reprogramados.add(new Object[]{intentos, Timestamp.valueOf(LocalDateTime.now(reloj).plus(espera(intentos))),
+                        resumen(exception), pendiente.id()});
+                log.atWarn().setMessage("evento no entregado")
+                        .addKeyValue("evento", pendiente.id())
+                        .addKeyValue("tipo", pendiente.tipo())
+                        .addKeyValue("intentos", intentos)
+                        .addKeyValue("error", exception.getClass().getSimpleName())
+                        .setCause(exception)
+                        .log();
+            }
+        }
+        if (!entregados.isEmpty()) {
+            jdbcTemplate.batchUpdate(BORRAR_EVENTO, entregados);
+        }
+        if (!reprogramados.isEmpty()) {
+            jdbcTemplate.batchUpdate(REPROGRAMAR_EVENTO, reprogramados);
+        }
+        return pendientes.size();
+    }
+
+    private void entregar(EventoPendiente pendiente) throws Exception {
+        var tipo = TIPOS.get(pendiente.tipo());
+        if (tipo == null) {
+            throw new IllegalStateException("Tipo de evento desconocido: " + pendiente.tipo());
+        }
+        var evento = objectMapper.readValue(pendiente.datos(), tipo);
+        for (var consumidor : consumidores) {
+            consumidor.procesar(evento);
+        }
+    }
+
+    private void medirAntiguedad() {
+        var creados = jdbcTemplate.queryForList(MAS_ANTIGUO, Timestamp.class);
+        antiguedad.set(creados.isEmpty() ? 0 : Duration.between(creados.get(0).toLocalDateTime(), LocalDateTime.now(reloj)).toSeconds());
+    }
+
+    //reintento inicial duplicado en cada intento, hasta el maximo
+    private Duration espera(int intentos) {
+        var espera = reintentoInicial.multipliedBy(1L << Math.min(intentos - 1, 20));
+        return espera.compareTo(reintentoMaximo) > 0 ? reintentoMaximo : espera;
+    }
+
+    private static String resumen(Exception exception) {
+        var resumen = exception.getClass().getSimpleName() + ": " + exception.getMessage();
+        return resumen.length() > 500 ? resumen.substring(0, 500) : resumen;
+    }
+
+    private EventoPendiente leer(ResultSet fila, int numero) throws SQLException {
+        return new EventoPendiente(fila.getLong(1), fila.getString(2), fila.getString(3),
+                fila.getTimestamp(4).toLocalDateTime(), fila.getInt(5));
+    }
+
+    private record EventoPendiente(Long id, String tipo, String datos, LocalDateTime creado, int intentos) {
+    }
+}
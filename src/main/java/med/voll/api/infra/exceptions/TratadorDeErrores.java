@@ -2,6 +2,12 @@ package med.voll.api.infra.exceptions;
 
 import jakarta.persistence.EntityNotFoundException;
 import med.voll.api.domain.ValidacionException;
+import med.voll.api.infra.metricas.ContadorDeRechazos;
+import med.voll.api.infra.security.LoginSaturadoException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -11,6 +17,9 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 @RestControllerAdvice
 public class TratadorDeErrores {
 
+    @Autowired
+    private ContadorDeRechazos contadorDeRechazos;
+
     @ExceptionHandler(EntityNotFoundException.class)
     public ResponseEntity tratarError404(){
         return ResponseEntity.notFound().build();
@@ -24,9 +33,22 @@ public class TratadorDeErrores {
 
     @ExceptionHandler(ValidacionException.class)
     public ResponseEntity tratarErrorDeValidacion(ValidacionException e){
+        contadorDeRechazos.registrar(e);
         return ResponseEntity.badRequest().body(e.getMessage());
     }
 
+    //restricciones unicas de la BD, p. ej. dos consultas activas del mismo medico en el mismo horario
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity tratarErrorDeIntegridad(){
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("El registro entra en conflicto con datos existentes");
+    }
+
+    //pool de BCrypt con la cola llena: se responde al instante para no retener el hilo
+    @ExceptionHandler(LoginSaturadoException.class)
+    public ResponseEntity tratarLoginSaturado(LoginSaturadoException e){
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(e.getMessage());
+    }
+
     private record DatosErrorValidacion(String campo, String error){
         public DatosErrorValidacion(FieldError error) {
             this(error.getField(), error.getDefaultMessage());
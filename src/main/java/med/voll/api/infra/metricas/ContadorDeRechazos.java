@@ -0,0 +1,32 @@
+package med.voll.api.infra.metricas;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import med.voll.api.domain.ValidacionException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Cuenta los rechazos por ValidacionException agrupados por categoria. Cada contador se registra la primera vez
+//que aparece su categoria; despues registrar solo incrementa
+@Component
+public class ContadorDeRechazos {
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private final Map<String, Counter> porCategoria = new ConcurrentHashMap<>();
+
+    public void registrar(ValidacionException e) {
+        porCategoria.computeIfAbsent(e.getCategoria(), this::contador).increment();
+    }
+
+    private Counter contador(String categoria) {
+        return Counter.builder("voll.validaciones.rechazos")
+                .description("Operaciones rechazadas por una regla de negocio")
+                .tag("categoria", categoria)
+                .register(registry);
+    }
+}
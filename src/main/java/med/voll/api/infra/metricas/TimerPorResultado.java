@@ -0,0 +1,52 @@
+package med.voll.api.infra.metricas;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import med.voll.api.domain.ValidacionException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+//Timer de una operacion con el resultado como tag: ok, rechazada (ValidacionException) o error.
+//Los tres timers se registran una sola vez; medir no busca nada en el registry
+public class TimerPorResultado {
+
+    private final Timer ok;
+    private final Timer rechazada;
+    private final Timer error;
+
+    public TimerPorResultado(MeterRegistry registry, String nombre, String descripcion) {
+        this.ok = timer(registry, nombre, descripcion, "ok");
+        this.rechazada = timer(registry, nombre, descripcion, "rechazada");
+        this.error = timer(registry, nombre, descripcion, "error");
+    }
+
+    public <T> T medir(Supplier<T> operacion) {
+        var inicio = System.nanoTime();
+        var timer = error;
+        try {
+            var resultado = operacion.get();
+            timer = ok;
+            return resultado;
+        } catch (ValidacionException e) {
+            timer = rechazada;
+            throw e;
+        } finally {
+            timer.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void medir(Runnable operacion) {
+        medir(() -> {
+            operacion.run();
+            return null;
+        });
+    }
+
+    private static Timer timer(MeterRegistry registry, String nombre, String descripcion, String resultado) {
+        return Timer.builder(nombre)
+                .description(descripcion)
+                .tag("resultado", resultado)
+                .register(registry);
+    }
+}
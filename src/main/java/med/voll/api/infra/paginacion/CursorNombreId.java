@@ -0,0 +1,31 @@
+package med.voll.api.infra.paginacion;
+
+import med.voll.api.domain.ValidacionException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+//Posicion de un listado ordenado por (nombre, id). Viaja al cliente como texto opaco en base64 url
+public record CursorNombreId(String nombre, Long id) {
+
+    public static final CursorNombreId INICIO = new CursorNombreId("", 0L);
+
+    public String codificar() {
+        var texto = id + "\n" + nombre;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    //cursor vacio: primera pagina
+    public static CursorNombreId decodificar(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return INICIO;
+        }
+        try {
+            var texto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            var separador = texto.indexOf('\n');
+            return new CursorNombreId(texto.substring(separador + 1), Long.valueOf(texto.substring(0, separador)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new ValidacionException("Cursor de paginacion invalido");
+        }
+    }
+}
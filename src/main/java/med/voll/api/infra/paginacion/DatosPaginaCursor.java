@@ -0,0 +1,17 @@
+package med.voll.api.infra.paginacion;
+
+import java.util.List;
+import java.util.function.Function;
+
+//Pagina de un listado por cursor: sin total ni numero de pagina, solo el cursor de la siguiente (null en la ultima)
+public record DatosPaginaCursor<T>(List<T> contenido, String siguiente) {
+
+    //filas trae hasta tamanio + 1 elementos; el extra solo indica que hay otra pagina
+    public static <E, T> DatosPaginaCursor<T> de(List<E> filas, int tamanio, Function<E, T> mapeo,
+                                                 Function<E, CursorNombreId> cursor) {
+        var hayMas = filas.size() > tamanio;
+        var pagina = hayMas ? filas.subList(0, tamanio) : filas;
+        var siguiente = hayMas ? cursor.apply(pagina.get(pagina.size() - 1)).codificar() : null;
+        return new DatosPaginaCursor<>(pagina.stream().map(mapeo).toList(), siguiente);
+    }
+}
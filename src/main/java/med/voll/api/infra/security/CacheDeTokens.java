@@ -0,0 +1,85 @@
+package med.voll.api.infra.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+//Cache acotada de token JWT a usuario autenticado; cada entrada vence junto con el claim exp del token
+@Component
+public class CacheDeTokens implements MeterBinder {
+
+    private final Cache<String, UsuarioAutenticado> cache;
+
+    public CacheDeTokens(@Value("${api.security.token.cache.maximo:10000}") long maximo) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximo)
+                .expireAfter(new ExpiracionDelToken())
+                .recordStats()
+                .build();
+    }
+
+    //null si el token no esta en cache. No hay un cache.get(token, funcion): la funcion que autentica consulta la BD y
+    //correria dentro del bloqueo de ConcurrentHashMap.compute, que es synchronized y fija el hilo portador cuando el
+    //hilo es virtual. Quien llama verifica el token, busca el usuario y lo guarda
+    public UsuarioAutenticado buscar(String tokenJWT) {
+        return cache.getIfPresent(tokenJWT);
+    }
+
+    public void guardar(String tokenJWT, UsuarioAutenticado autenticado) {
+        cache.put(tokenJWT, autenticado);
+    }
+
+    public void invalidar(String tokenJWT) {
+        cache.invalidate(tokenJWT);
+    }
+
+    public void invalidarTodo() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats estadisticas() {
+        return cache.stats();
+    }
+
+    public long tamanio() {
+        return cache.estimatedSize();
+    }
+
+    //aciertos, fallos, desalojos y tamanio como cache.* con cache=tokens
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "tokens");
+    }
+
+    public record UsuarioAutenticado(UserDetails usuario, Instant expiracion, String jti) {
+    }
+
+    private static class ExpiracionDelToken implements Expiry<String, UsuarioAutenticado> {
+
+        @Override
+        public long expireAfterCreate(String token, UsuarioAutenticado autenticado, long tiempoActual) {
+            var restante = Duration.between(Instant.now(), autenticado.expiracion());
+            return restante.isNegative() ? 0 : restante.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, UsuarioAutenticado autenticado, long tiempoActual, long duracionActual) {
+            return duracionActual;
+        }
+
+        @Override
+        public long expireAfterRead(String token, UsuarioAutenticado autenticado, long tiempoActual, long duracionActual) {
+            return duracionActual;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package med.voll.api.infra.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+//Corre BCrypt en un pool fijo de hilos con cola acotada: una avalancha de logins ocupa a lo sumo 'hilos' CPUs
+//y, con la cola llena, se rechaza al instante con LoginSaturadoException en lugar de retener hilos de Tomcat
+public class CodificadorDeClavesAcotado implements PasswordEncoder, MeterBinder {
+
+    private final PasswordEncoder delegado;
+    private final ThreadPoolExecutor ejecutor;
+    private final long esperaMaximaMillis;
+
+    private final LongAdder completados = new LongAdder();
+    private final LongAdder rechazados = new LongAdder();
+    private final LongAdder nanosTotales = new LongAdder();
+    private final LongAccumulator nanosMaximo = new LongAccumulator(Math::max, 0);
+    //null hasta que Spring enlaza las metricas
+    private volatile Timer timerHash;
+
+    public CodificadorDeClavesAcotado(PasswordEncoder delegado, int hilos, int capacidadCola, long esperaMaximaMillis) {
+        this.delegado = delegado;
+        this.esperaMaximaMillis = esperaMaximaMillis;
+        var numero = new AtomicInteger();
+        this.ejecutor = new ThreadPoolExecutor(hilos, hilos, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadCola),
+                tarea -> {
+                    var hilo = new Thread(tarea, "hash-claves-" + numero.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence clave) {
+        return ejecutar(() -> delegado.encode(clave));
+    }
+
+    @Override
+    public boolean matches(CharSequence clave, String hash) {
+        return ejecutar(() -> delegado.matches(clave, hash));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String hash) {
+        return delegado.upgradeEncoding(hash);
+    }
+
+    public EstadisticasHashes estadisticas() {
+        return new EstadisticasHashes(ejecutor.getQueue().size(), ejecutor.getActiveCount(), completados.sum(),
+                rechazados.sum(), nanosTotales.sum(), nanosMaximo.get());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("voll.login.hash.cola", ejecutor, e -> e.getQueue().size())
+                .description("Hashes BCrypt esperando un hilo del pool")
+                .register(registry);
+        Gauge.builder("voll.login.hash.activos", ejecutor, ThreadPoolExecutor::getActiveCount)
+                .description("Hashes BCrypt en ejecucion")
+                .register(registry);
+        FunctionCounter.builder("voll.login.hash.rechazados", rechazados, LongAdder::sum)
+                .description("Hashes rechazados por cola llena o espera vencida")
+                .register(registry);
+        timerHash = Timer.builder("voll.login.hash")
+                .description("Duracion de BCrypt dentro del pool, sin el tiempo en cola")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        ejecutor.shutdownNow();
+    }
+
+    private <T> T ejecutar(Callable<T> hash) {
+        var espera = TimeUnit.MILLISECONDS.toNanos(esperaMaximaMillis);
+        var vence = System.nanoTime() + espera;
+        var tarea = new FutureTask<>(() -> {
+            var inicio = System.nanoTime();
+            //BCrypt no atiende interrupciones: si quien espera ya se rindio no se gasta CPU en su hash
+            if (inicio - vence > 0) {
+                throw new LoginSaturadoException();
+            }
+            try {
+                return hash.call();
+            } finally {
+                var nanos = System.nanoTime() - inicio;
+                completados.increment();
+                nanosTotales.add(nanos);
+                nanosMaximo.accumulate(nanos);
+                var timer = timerHash;
+                if (timer != null) {
+                    timer.record(nanos, TimeUnit.NANOSECONDS);
+                }
+            }
+        });
+        try {
+            ejecutor.execute(tarea);
+            try {
+                return tarea.get(espera, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                //si todavia estaba en cola se saca para liberar el lugar
+                tarea.cancel(false);
+                ejecutor.remove(tarea);
+                rechazados.increment();
+                throw new LoginSaturadoException();
+            }
+        } catch (RejectedExecutionException e) {
+            rechazados.increment();
+            throw new LoginSaturadoException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LoginSaturadoException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    //latencia medida dentro del pool, sin el tiempo en cola
+    public record EstadisticasHashes(int enCola, int activos, long completados, long rechazados,
+                                     long nanosTotales, long nanosMaximo) {
+    }
+}
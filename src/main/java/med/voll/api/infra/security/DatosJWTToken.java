@@ -1,4 +1,4 @@
 package med.voll.api.infra.security;
 
-public record DatosJWTToken(String jwTtoken) {
+public record DatosJWTToken(String jwTtoken, String refreshToken) {
 }
@@ -0,0 +1,6 @@
+package med.voll.api.infra.security;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record DatosRefreshToken(@NotBlank String refreshToken) {
+}
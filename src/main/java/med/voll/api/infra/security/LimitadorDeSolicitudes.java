@@ -0,0 +1,127 @@
+package med.voll.api.infra.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.PathContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+//Token bucket por regla de ruta y por cliente (usuario o IP), sin locks: cada cubeta es un AtomicLong con el instante
+//teorico en que volveria a estar llena (GCRA) y consumir es un CAS. Las cubetas viven en un ConcurrentHashMap, que
+//reparte el bloqueo de las escrituras por celda; una cubeta llena no guarda informacion, asi que la purga las borra
+//Reglas: "[METODO ]patron=capacidad/periodo", por ejemplo "POST /login=10/PT1M"; se aplica la primera que coincide
+@Component
+public class LimitadorDeSolicitudes implements MeterBinder {
+
+    private final List<Regla> reglas;
+    private final Map<Llave, AtomicLong> cubetas = new ConcurrentHashMap<>();
+
+    public LimitadorDeSolicitudes(@Value("${api.security.limites.rutas:}") List<String> rutas) {
+        var leidas = new ArrayList<Regla>();
+        for (var ruta : rutas) {
+            if (!ruta.isBlank()) {
+                leidas.add(Regla.de(ruta.trim()));
+            }
+        }
+        this.reglas = List.copyOf(leidas);
+    }
+
+    //0 si la solicitud entra; si no, los nanosegundos hasta que haya lugar en la cubeta
+    public long consumir(HttpServletRequest request, String cliente) {
+        var indice = indiceDeRegla(request);
+        if (indice < 0) {
+            return 0;
+        }
+        var regla = reglas.get(indice);
+        var ahora = System.nanoTime();
+        var llave = new Llave(indice, cliente);
+        var cubeta = cubetas.get(llave);
+        if (cubeta == null) {
+            cubeta = cubetas.computeIfAbsent(llave, nueva -> new AtomicLong(ahora));
+        }
+        while (true) {
+            var llena = cubeta.get();
+            var siguiente = Math.max(llena, ahora) + regla.intervalo();
+            var exceso = siguiente - ahora - regla.periodo();
+            if (exceso > 0) {
+                regla.rechazos().increment();
+                return exceso;
+            }
+            if (cubeta.compareAndSet(llena, siguiente)) {
+                return 0;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${api.security.limites.intervalo-purga:60000}")
+    public void purgarInactivas() {
+        var ahora = System.nanoTime();
+        cubetas.values().removeIf(cubeta -> cubeta.get() - ahora <= 0);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("voll.limite.cubetas", cubetas, Map::size)
+                .description("Cubetas de clientes con solicitudes recientes")
+                .register(registry);
+        for (var regla : reglas) {
+            FunctionCounter.builder("voll.limite.rechazos", regla.rechazos(), LongAdder::sum)
+                    .description("Solicitudes rechazadas con 429 por el limitador")
+                    .tag("regla", regla.descripcion())
+                    .register(registry);
+        }
+    }
+
+    private int indiceDeRegla(HttpServletRequest request) {
+        if (reglas.isEmpty()) {
+            return -1;
+        }
+        var ruta = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+        for (var i = 0; i < reglas.size(); i++) {
+            var regla = reglas.get(i);
+            if ((regla.metodo() == null || regla.metodo().equals(request.getMethod())) && regla.patron().matches(ruta)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    //intervalo: nanosegundos que tarda en reponerse una ficha; periodo: los que tarda la cubeta vacia en llenarse
+    private record Regla(String descripcion, String metodo, PathPattern patron, long intervalo, long periodo, LongAdder rechazos) {
+
+        static Regla de(String definicion) {
+            var igual = definicion.lastIndexOf('=');
+            var barra = definicion.lastIndexOf('/');
+            if (igual < 0 || barra < igual) {
+                throw new IllegalArgumentException("Limite de ruta invalido: " + definicion);
+            }
+            var ruta = definicion.substring(0, igual).trim();
+            var espacio = ruta.indexOf(' ');
+            var metodo = espacio < 0 ? null : ruta.substring(0, espacio).toUpperCase();
+            var patron = espacio < 0 ? ruta : ruta.substring(espacio + 1).trim();
+            var capacidad = Long.parseLong(definicion.substring(igual + 1, barra).trim());
+            var periodo = Duration.parse(definicion.substring(barra + 1).trim()).toNanos();
+            if (capacidad <= 0 || periodo <= 0) {
+                throw new IllegalArgumentException("Limite de ruta invalido: " + definicion);
+            }
+            return new Regla(ruta, metodo, PathPatternParser.defaultInstance.parse(patron), periodo / capacidad, periodo, new LongAdder());
+        }
+    }
+
+    private record Llave(int regla, String cliente) {
+    }
+}
@@ -0,0 +1,7 @@
+package med.voll.api.infra.security;
+
+public class LoginSaturadoException extends RuntimeException {
+    public LoginSaturadoException() {
+        super("Demasiados intentos de login en curso, intente nuevamente en unos segundos");
+    }
+}
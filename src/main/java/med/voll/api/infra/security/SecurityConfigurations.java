@@ -1,6 +1,7 @@
 package med.voll.api.infra.security;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -10,7 +11,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
@@ -26,8 +26,10 @@ public class SecurityConfigurations {
         return httpSecurity.csrf(csrf -> csrf.disable())
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests((authorizeHttpRequests) ->
-                        authorizeHttpRequests.requestMatchers(HttpMethod.POST, "/login").permitAll()
+                        authorizeHttpRequests.requestMatchers(HttpMethod.POST, "/login", "/login/refresh").permitAll()
                                 .requestMatchers("/v3/api-docs/**", "/swagger-ui.html", "/swagger-ui/**").permitAll()
+                                //health checks sin token; las metricas (/actuator/prometheus) piden token como el resto
+                                .requestMatchers(HttpMethod.GET, "/actuator/health/**").permitAll()
                                 .anyRequest()
                                 .authenticated()
                 )
@@ -41,9 +43,13 @@ public class SecurityConfigurations {
         return authenticationConfiguration.getAuthenticationManager();
     }
 
+    //hilos = 0 usa un hilo por CPU
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public CodificadorDeClavesAcotado passwordEncoder(@Value("${api.security.login.hilos:0}") int hilos,
+                                           @Value("${api.security.login.cola:50}") int capacidadCola,
+                                           @Value("${api.security.login.espera-maxima:1000}") long esperaMaximaMillis) {
+        var hilosHash = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+        return new CodificadorDeClavesAcotado(new BCryptPasswordEncoder(), hilosHash, capacidadCola, esperaMaximaMillis);
     }
 
 }
\ No newline at end of file
@@ -1,17 +1,25 @@
 package med.voll.api.infra.security;
 
+import com.auth0.jwt.interfaces.DecodedJWT;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import med.voll.api.domain.usuarios.UsuarioRepository;
+import med.voll.api.infra.security.CacheDeTokens.UsuarioAutenticado;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class SecurityFilter extends OncePerRequestFilter {
@@ -22,19 +30,102 @@ public class SecurityFilter extends OncePerRequestFilter {
     @Autowired
     private TokenService tokenService;
 
+    @Autowired
+    private CacheDeTokens cacheDeTokens;
+
+    @Autowired
+    private TokensRevocados tokensRevocados;
+
+    @Autowired
+    private LimitadorDeSolicitudes limitador;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private Timer timerAutenticacion;
+
+    @PostConstruct
+    public void registrarMetricas() {
+        timerAutenticacion = Timer.builder("voll.seguridad.filtro")
+                .description("Autenticacion del token en SecurityFilter, sin el resto de la cadena")
+                .register(registry);
+    }
+
+    //El limite de solicitudes se controla antes de cualquier acceso a la BD: con token, por el subject ya verificado
+    //(o el usuario del token en cache); sin token o con un token invalido, por la IP del cliente
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         var tokenJWT = recuperarToken(request);
-        if (tokenJWT != null){
-            var subject = tokenService.getSubject(tokenJWT);
-            var usuario = repository.findByLogin(subject);
+        var inicio = System.nanoTime();
+        var credencial = tokenJWT == null ? null : identificar(tokenJWT);
+        //el timer mide solo la autenticacion: se descuenta el tiempo del limitador
+        var nanosAutenticacion = System.nanoTime() - inicio;
+        var cliente = credencial == null ? "ip:" + request.getRemoteAddr() : "usuario:" + credencial.sujeto();
+        var espera = limitador.consumir(request, cliente);
+        if (espera > 0) {
+            rechazarPorLimite(response, espera);
+            return;
+        }
+        if (credencial != null){
+            inicio = System.nanoTime();
+            autenticarPeticion(tokenJWT, credencial);
+            timerAutenticacion.record(nanosAutenticacion + System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+
+        filterChain.doFilter(request, response);
+    }
 
+    //sin BD: el usuario del cache o el subject del token recien verificado; null si el token no es valido
+    private Credencial identificar(String tokenJWT) {
+        var enCache = cacheDeTokens.buscar(tokenJWT);
+        if (enCache != null) {
+            return new Credencial(enCache.usuario().getUsername(), enCache, null);
+        }
+        DecodedJWT tokenVerificado;
+        try {
+            tokenVerificado = tokenService.verificar(tokenJWT);
+        } catch (RuntimeException exception) {
+            //falsificado o expirado: cuenta en la cubeta de la IP y sigue sin autenticar, asi Spring Security lo rechaza
+            return null;
+        }
+        return new Credencial(tokenVerificado.getSubject(), null, tokenVerificado);
+    }
+
+    private void autenticarPeticion(String tokenJWT, Credencial credencial) {
+        var autenticado = credencial.enCache();
+        if (autenticado == null) {
+            autenticado = autenticar(credencial.tokenVerificado());
+            if (autenticado != null) {
+                cacheDeTokens.guardar(tokenJWT, autenticado);
+            }
+        }
+        //la revocacion se consulta en cada peticion, tambien con el token en cache
+        if (autenticado != null && !tokensRevocados.revocado(autenticado.jti())) {
+            var usuario = autenticado.usuario();
             var authentication = new UsernamePasswordAuthenticationToken(usuario, null, usuario.getAuthorities());
 
             SecurityContextHolder.getContext().setAuthentication(authentication);
         }
+    }
 
-        filterChain.doFilter(request, response);
+    //solo se ejecuta cuando el token no esta en cache
+    private UsuarioAutenticado autenticar(DecodedJWT tokenVerificado) {
+        //un refresh token no autentica peticiones, solo sirve en /login/refresh
+        if (tokenService.esRefreshToken(tokenVerificado)) {
+            return null;
+        }
+        var usuario = repository.findByLogin(tokenVerificado.getSubject());
+        return usuario == null ? null : new UsuarioAutenticado(usuario, tokenVerificado.getExpiresAtAsInstant(),
+                tokenVerificado.getId());
+    }
+
+    //429 con Retry-After en segundos enteros, redondeado hacia arriba
+    private void rechazarPorLimite(HttpServletResponse response, long esperaNanos) throws IOException {
+        var segundos = (esperaNanos + 999_999_999L) / 1_000_000_000L;
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(segundos));
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write("Demasiadas solicitudes, intente nuevamente en " + segundos + " segundos");
     }
 
     private String recuperarToken(HttpServletRequest request) {
@@ -44,4 +135,8 @@ public class SecurityFilter extends OncePerRequestFilter {
         }
         return null;
     }
+
+    //enCache o tokenVerificado, segun de donde salio el subject
+    private record Credencial(String sujeto, UsuarioAutenticado enCache, DecodedJWT tokenVerificado) {
+    }
 }
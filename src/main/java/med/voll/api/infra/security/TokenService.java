@@ -1,50 +1,198 @@
 package med.voll.api.infra.security;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTCreationException;
 import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import med.voll.api.domain.usuarios.Usuario;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
 
 @Service
 public class TokenService {
 
+    private static final Logger log = LoggerFactory.getLogger(TokenService.class);
+    private static final String EMISOR = "API Voll.med";
+    private static final String PREFIJO_CLAVE = "clave.";
+    private static final String CLAIM_TIPO = "tipo";
+    private static final String TIPO_REFRESH = "refresh";
+
     @Value("${api.security.token.secret}")
     private String secret;
 
+    @Value("${api.security.token.kid:principal}")
+    private String kid;
+
+    //kid de la clave original, la unica que existia cuando se emitian tokens sin kid
+    @Value("${api.security.token.kid-heredado:principal}")
+    private String kidHeredado;
+
+    //archivo opcional con "activa=<kid>" y una linea "clave.<kid>=<secreto>" por cada clave de verificacion
+    @Value("${api.security.token.claves.archivo:}")
+    private String archivoClaves;
+
+    @Value("${api.security.token.duracion:PT2H}")
+    private Duration duracion;
+
+    @Value("${api.security.token.refresh.duracion:P7D}")
+    private Duration duracionRefresh;
+
+    @Autowired
+    private CacheDeTokens cacheDeTokens;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private Timer timerFirma;
+    private Timer timerVerificacion;
+
+    //algoritmo y verificadores se construyen una vez y se comparten entre hilos; se reemplazan completos al rotar
+    private volatile Claves claves;
+    private long ultimaModificacionArchivo;
+
+    @PostConstruct
+    public void iniciar() {
+        timerFirma = Timer.builder("voll.token.firma").description("Generacion y firma de tokens JWT").register(registry);
+        timerVerificacion = Timer.builder("voll.token.verificacion").description("Verificacion de tokens JWT").register(registry);
+        if (archivoClaves.isBlank()) {
+            recargarClaves(kid, Map.of(kid, secret));
+        } else {
+            leerArchivoClaves();
+        }
+    }
+
     public String generarToken(Usuario usuario) {
+        return generar(usuario, duracion, false);
+    }
+
+    //el refresh token solo sirve en /login/refresh; el jti permite revocarlo al usarlo
+    public String generarRefreshToken(Usuario usuario) {
+        return generar(usuario, duracionRefresh, true);
+    }
+
+    private String generar(Usuario usuario, Duration vigencia, boolean refresh) {
+        return timerFirma.record(() -> firmar(usuario, vigencia, refresh));
+    }
+
+    private String firmar(Usuario usuario, Duration vigencia, boolean refresh) {
+        var actuales = claves;
         try {
-            var algoritmo = Algorithm.HMAC256(secret);
-            return JWT.create()
-                    .withIssuer("API Voll.med")
+            var token = JWT.create()
+                    .withKeyId(actuales.kidActivo())
+                    .withIssuer(EMISOR)
                     .withSubject(usuario.getLogin())
-                    .withExpiresAt(fechaExpiracion())
-                    .sign(algoritmo);
+                    .withJWTId(UUID.randomUUID().toString())
+                    .withExpiresAt(Instant.now().plus(vigencia));
+            if (refresh) {
+                token.withClaim(CLAIM_TIPO, TIPO_REFRESH);
+            }
+            return token.sign(actuales.firma());
         } catch (JWTCreationException exception){
             throw new RuntimeException("error al generar el token JWT", exception);
         }
     }
 
-    private Instant fechaExpiracion() {
-        return LocalDateTime.now().plusHours(2).toInstant(ZoneOffset.of("-03:00"));
+    public boolean esRefreshToken(DecodedJWT token) {
+        return TIPO_REFRESH.equals(token.getClaim(CLAIM_TIPO).asString());
     }
 
     public String getSubject(String tokenJWT) {
+        return verificar(tokenJWT).getSubject();
+    }
+
+    public DecodedJWT verificar(String tokenJWT) {
+        return timerVerificacion.record(() -> verificarFirma(tokenJWT));
+    }
+
+    private DecodedJWT verificarFirma(String tokenJWT) {
+        var actuales = claves;
         try {
-            var algoritmo = Algorithm.HMAC256(secret);
-            return JWT.require(algoritmo)
-                    .withIssuer("API Voll.med")
-                    .build()
-                    .verify(tokenJWT)
-                    .getSubject();
+            var decodificado = JWT.decode(tokenJWT);
+            //los tokens emitidos antes de que hubiera rotacion no traen kid y se firmaron con la clave original; si esa
+            //clave sale de las claves de verificacion, esos tokens dejan de ser validos
+            var kidToken = decodificado.getKeyId() == null ? kidHeredado : decodificado.getKeyId();
+            var verificador = actuales.verificadores().get(kidToken);
+            if (verificador == null) {
+                throw new RuntimeException("Token JWT invalido o expirado!");
+            }
+            return verificador.verify(decodificado);
         } catch (JWTVerificationException exception){
             throw new RuntimeException("Token JWT invalido o expirado!");
         }
     }
+
+    //rotacion sin reinicio: se firma con la clave activa y se aceptan todas las claves recibidas
+    public void recargarClaves(String kidActivo, Map<String, String> secretos) {
+        if (kidActivo == null || !secretos.containsKey(kidActivo)) {
+            throw new IllegalArgumentException("La clave activa '" + kidActivo + "' no esta entre las claves de verificacion");
+        }
+        var verificadores = new HashMap<String, JWTVerifier>();
+        secretos.forEach((id, secreto) -> verificadores.put(id, JWT.require(Algorithm.HMAC256(secreto))
+                .withIssuer(EMISOR)
+                .build()));
+        var anteriores = claves;
+        claves = new Claves(kidActivo, Algorithm.HMAC256(secretos.get(kidActivo)), Map.copyOf(verificadores));
+        //un token cacheado pudo firmarse con una clave que ya no se acepta
+        if (anteriores != null) {
+            cacheDeTokens.invalidarTodo();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${api.security.token.claves.intervalo-recarga:60000}")
+    public void recargarArchivoClaves() {
+        if (archivoClaves.isBlank()) {
+            return;
+        }
+        try {
+            leerArchivoClaves();
+        } catch (RuntimeException exception) {
+            log.error("No se pudieron recargar las claves JWT de {}, se mantienen las actuales", archivoClaves, exception);
+        }
+    }
+
+    private void leerArchivoClaves() {
+        var ruta = Path.of(archivoClaves);
+        try {
+            var modificado = Files.getLastModifiedTime(ruta).toMillis();
+            if (claves != null && modificado == ultimaModificacionArchivo) {
+                return;
+            }
+            var propiedades = new Properties();
+            try (var lector = Files.newBufferedReader(ruta)) {
+                propiedades.load(lector);
+            }
+            var secretos = new HashMap<String, String>();
+            propiedades.stringPropertyNames().stream()
+                    .filter(nombre -> nombre.startsWith(PREFIJO_CLAVE))
+                    .forEach(nombre -> secretos.put(nombre.substring(PREFIJO_CLAVE.length()), propiedades.getProperty(nombre)));
+            recargarClaves(propiedades.getProperty("activa"), secretos);
+            ultimaModificacionArchivo = modificado;
+            log.info("Claves JWT cargadas de {}: activa={}, verificacion={}", archivoClaves, claves.kidActivo(), secretos.keySet());
+        } catch (IOException exception) {
+            throw new UncheckedIOException("No se pudo leer el archivo de claves JWT " + archivoClaves, exception);
+        }
+    }
+
+    private record Claves(String kidActivo, Algorithm firma, Map<String, JWTVerifier> verificadores) {
+    }
 }
@@ -0,0 +1,62 @@
+package med.voll.api.infra.security;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Tokens revocados antes de vencer, en memoria: huella de 64 bits del jti -> vencimiento en segundos.
+//Una colision de huellas solo puede rechazar un token valido, nunca aceptar uno revocado.
+//Se pierde al reiniciar, igual que la cache de tokens; cada entrada se purga cuando el token vence
+@Component
+public class TokensRevocados implements MeterBinder {
+
+    private final Map<Long, Long> revocados = new ConcurrentHashMap<>();
+
+    public void revocar(String jti, Instant expiracion) {
+        if (jti != null && expiracion != null && expiracion.isAfter(Instant.now())) {
+            revocados.put(huella(jti), expiracion.getEpochSecond());
+        }
+    }
+
+    //false si se acaba de revocar, para que dos usos simultaneos del mismo refresh token no pasen ambos
+    public boolean revocarSiNoEsta(String jti, Instant expiracion) {
+        return revocados.putIfAbsent(huella(jti), expiracion.getEpochSecond()) == null;
+    }
+
+    public boolean revocado(String jti) {
+        return jti != null && revocados.containsKey(huella(jti));
+    }
+
+    public int tamanio() {
+        return revocados.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("voll.token.revocados", this, TokensRevocados::tamanio)
+                .description("Tokens revocados que todavia no vencieron")
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${api.security.token.revocados.intervalo-purga:300000}")
+    public void purgarVencidos() {
+        var ahora = Instant.now().getEpochSecond();
+        revocados.values().removeIf(vencimiento -> vencimiento <= ahora);
+    }
+
+    //FNV-1a de 64 bits
+    private static long huella(String jti) {
+        var hash = 0xcbf29ce484222325L;
+        for (var i = 0; i < jti.length(); i++) {
+            hash ^= jti.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
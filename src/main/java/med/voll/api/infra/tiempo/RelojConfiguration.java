@@ -0,0 +1,18 @@
+package med.voll.api.infra.tiempo;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+import java.time.ZoneId;
+
+//Un unico reloj para las reglas de agenda: todas las comparaciones con "ahora" usan la misma zona horaria
+@Configuration
+public class RelojConfiguration {
+
+    @Bean
+    public Clock reloj(@Value("${api.agenda.zona:}") String zona) {
+        return zona.isBlank() ? Clock.systemDefaultZone() : Clock.system(ZoneId.of(zona));
+    }
+}
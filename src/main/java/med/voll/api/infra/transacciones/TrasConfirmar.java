@@ -0,0 +1,38 @@
+package med.voll.api.infra.transacciones;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+//Ejecuta la accion cuando la transaccion actual confirma, o en el momento si no hay transaccion
+public final class TrasConfirmar {
+
+    private TrasConfirmar() {
+    }
+
+    public static void ejecutar(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+
+    //corre despues de afterCommit y tambien si hay rollback; sin transaccion se ejecuta en el momento
+    public static void alTerminar(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int estado) {
+                accion.run();
+            }
+        });
+    }
+}
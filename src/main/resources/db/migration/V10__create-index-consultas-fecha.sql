@@ -0,0 +1 @@
+create index ix_consultas_fecha_id on consultas(fecha, id);
@@ -0,0 +1,25 @@
+create table reglas_agenda(
+
+    id bigint not null auto_increment,
+    tipo varchar(20) not null,
+    especialidad varchar(100),
+    medico_id bigint,
+    dia_semana tinyint,
+    hora_inicio tinyint,
+    hora_fin tinyint,
+    fecha date,
+    reserva_minutos int,
+    cancelacion_minutos int,
+
+    primary key(id),
+    constraint fk_reglas_agenda_medico_id foreign key(medico_id) references medicos(id)
+
+);
+
+-- reglas de toda la clinica equivalentes al horario que estaba fijo en el codigo: lunes a sabado de 07 a 18,
+-- reservas con 30 minutos y cancelamientos con 24 horas de anticipacion
+insert into reglas_agenda(tipo, dia_semana, hora_inicio, hora_fin) values
+    ('HORARIO', 1, 7, 18), ('HORARIO', 2, 7, 18), ('HORARIO', 3, 7, 18),
+    ('HORARIO', 4, 7, 18), ('HORARIO', 5, 7, 18), ('HORARIO', 6, 7, 18);
+
+insert into reglas_agenda(tipo, reserva_minutos, cancelacion_minutos) values ('ANTICIPACION', 30, 1440);
@@ -0,0 +1,18 @@
+create table jornadas(
+
+    id bigint not null auto_increment,
+    medico_id bigint not null,
+    dia_semana tinyint not null,
+    hora_inicio tinyint not null,
+    hora_fin tinyint not null,
+
+    primary key(id),
+    constraint fk_jornadas_medico_id foreign key(medico_id) references medicos(id)
+
+);
+
+-- el horario propio de cada medico pasa de reglas_agenda a sus jornadas
+insert into jornadas(medico_id, dia_semana, hora_inicio, hora_fin)
+    select medico_id, dia_semana, hora_inicio, hora_fin from reglas_agenda where tipo = 'HORARIO' and medico_id is not null;
+
+delete from reglas_agenda where tipo = 'HORARIO' and medico_id is not null;
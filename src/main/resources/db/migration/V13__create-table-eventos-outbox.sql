@@ -0,0 +1,17 @@
+create table eventos_outbox(
+
+    id bigint not null auto_increment,
+    tipo varchar(50) not null,
+    consulta_id bigint not null,
+    datos varchar(1000) not null,
+    creado datetime(6) not null,
+    intentos int not null default 0,
+    proximo_intento datetime(6) not null,
+    ultimo_error varchar(500),
+
+    primary key(id)
+
+);
+
+-- el despachador solo toma el evento mas antiguo pendiente de cada consulta
+create index ix_eventos_outbox_consulta_id on eventos_outbox(consulta_id, id);
@@ -0,0 +1,15 @@
+create table claves_idempotencia(
+
+    usuario varchar(100) not null,
+    clave varchar(100) not null,
+    consulta_id bigint not null,
+    medico_id bigint not null,
+    paciente_id bigint not null,
+    fecha datetime not null,
+    creado datetime(6) not null,
+
+    primary key(usuario, clave)
+
+);
+
+create index ix_claves_idempotencia_creado on claves_idempotencia(creado);
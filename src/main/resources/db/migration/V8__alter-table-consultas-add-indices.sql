@@ -0,0 +1,6 @@
+alter table consultas add column medico_id_activo bigint
+    generated always as (if(motivo_cancelamiento is null, medico_id, null)) stored;
+
+create index ix_consultas_medico_fecha_motivo on consultas(medico_id, fecha, motivo_cancelamiento);
+create index ix_consultas_paciente_fecha on consultas(paciente_id, fecha);
+create unique index uk_consultas_medico_activo_fecha on consultas(medico_id_activo, fecha);
@@ -0,0 +1,2 @@
+create index ix_medicos_activo_nombre_id on medicos(activo, nombre, id);
+create index ix_pacientes_activo_nombre_id on pacientes(activo, nombre, id);
@@ -0,0 +1,65 @@
+package med.voll.api;
+
+import med.voll.api.domain.consulta.AsignadorDeMedicos;
+import med.voll.api.domain.medico.Especialidad;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+
+import java.sql.Statement;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Altas de medicos y pacientes por JDBC para las pruebas de integracion sobre el perfil h2. Cada alta usa datos
+//nuevos, asi las pruebas que comparten el contexto de Spring no chocan entre si
+public class DatosDePrueba {
+
+    private static final AtomicInteger SECUENCIA = new AtomicInteger();
+
+    private final JdbcTemplate jdbc;
+    private final AsignadorDeMedicos asignador;
+
+    public DatosDePrueba(ApplicationContext contexto) {
+        this.jdbc = contexto.getBean(JdbcTemplate.class);
+        this.asignador = contexto.getBean(AsignadorDeMedicos.class);
+    }
+
+    //activo y ya cargado en la lista de medicos de su especialidad
+    public Long medico(Especialidad especialidad) {
+        var n = SECUENCIA.incrementAndGet();
+        var id = insertar("""
+                insert into medicos(nombre, email, telefono, documento, activo, especialidad, calle, numero, complemento, distrito, ciudad)
+                values (?, ?, '6145489789', ?, true, ?, 'calle x', '123', '1', 'distrito y', 'ciudad z')
+                """, "Medico " + n, "medico" + n + "@voll.med", String.valueOf(100000 + n), especialidad.name());
+        asignador.cargar();
+        return id;
+    }
+
+    public Long paciente() {
+        var n = SECUENCIA.incrementAndGet();
+        return insertar("""
+                insert into pacientes(nombre, email, telefono, documento, activo, calle, numero, complemento, distrito, ciudad)
+                values (?, ?, '1234564', ?, true, 'calle x', '123', '1', 'distrito y', 'ciudad z')
+                """, "Paciente " + n, "paciente" + n + "@voll.med", String.valueOf(1000000 + n));
+    }
+
+    //lunes a las 10 dentro de 'semanas' semanas: horario de atencion y con la anticipacion minima cumplida
+    public static LocalDateTime lunes(int semanas) {
+        return LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY)).plusWeeks(semanas).atTime(10, 0);
+    }
+
+    private Long insertar(String sql, Object... valores) {
+        var claves = new GeneratedKeyHolder();
+        jdbc.update(conexion -> {
+            var statement = conexion.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            for (var i = 0; i < valores.length; i++) {
+                statement.setObject(i + 1, valores[i]);
+            }
+            return statement;
+        }, claves);
+        return claves.getKey().longValue();
+    }
+}
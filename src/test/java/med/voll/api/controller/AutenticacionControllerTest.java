@@ -0,0 +1,125 @@
+package med.voll.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.Filter;
+import med.voll.api.infra.security.DatosJWTToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class AutenticacionControllerTest {
+
+    private static final String CLAVE = "123456";
+
+    @Autowired
+    private WebApplicationContext contexto;
+
+    @Autowired
+    @Qualifier("springSecurityFilterChain")
+    private Filter filtrosDeSeguridad;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private PasswordEncoder encoder;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private MockMvc mvc;
+    private String login;
+
+    @BeforeEach
+    void crearUsuario() {
+        mvc = MockMvcBuilders.webAppContextSetup(contexto).addFilters(filtrosDeSeguridad).build();
+        login = "usuario." + UUID.randomUUID();
+        jdbc.update("insert into usuarios(login, clave) values (?, ?)", login, encoder.encode(CLAVE));
+    }
+
+    @Test
+    @DisplayName("Un refresh token se puede usar una sola vez")
+    void refreshReutilizado() throws Exception {
+        var tokens = iniciarSesion();
+
+        var renovados = tokens(refrescar(tokens.refreshToken()).andExpect(status().isOk()));
+        refrescar(tokens.refreshToken()).andExpect(status().isForbidden());
+
+        assertThat(renovados.refreshToken()).isNotEqualTo(tokens.refreshToken());
+        consultarConToken(renovados.jwTtoken()).andExpect(status().isOk());
+        refrescar(renovados.refreshToken()).andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Un refresh token no autentica peticiones y un token de acceso no sirve para renovar")
+    void tiposDeToken() throws Exception {
+        var tokens = iniciarSesion();
+
+        consultarConToken(tokens.refreshToken()).andExpect(status().isForbidden());
+        refrescar(tokens.jwTtoken()).andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("Logout revoca el token de acceso y el refresh token de la sesion")
+    void logoutRevoca() throws Exception {
+        var tokens = iniciarSesion();
+        //el token queda en la cache de tokens; la revocacion se consulta igual en cada peticion
+        consultarConToken(tokens.jwTtoken()).andExpect(status().isOk());
+
+        mvc.perform(post("/login/logout")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + tokens.jwTtoken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(Map.of("refreshToken", tokens.refreshToken()))))
+                .andExpect(status().isNoContent());
+
+        consultarConToken(tokens.jwTtoken()).andExpect(status().isForbidden());
+        refrescar(tokens.refreshToken()).andExpect(status().isForbidden());
+    }
+
+    private DatosJWTToken iniciarSesion() throws Exception {
+        return tokens(mvc.perform(post("/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(Map.of("login", login, "clave", CLAVE))))
+                .andExpect(status().isOk()));
+    }
+
+    private ResultActions refrescar(String refreshToken) throws Exception {
+        return mvc.perform(post("/login/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("refreshToken", refreshToken))));
+    }
+
+    private ResultActions consultarConToken(String token) throws Exception {
+        return mvc.perform(get("/medicos").header(HttpHeaders.AUTHORIZATION, "Bearer " + token));
+    }
+
+    private DatosJWTToken tokens(ResultActions respuesta) throws Exception {
+        return objectMapper.readValue(respuesta.andReturn().getResponse().getContentAsString(), DatosJWTToken.class);
+    }
+
+    private String json(Object valor) throws Exception {
+        return objectMapper.writeValueAsString(valor);
+    }
+}
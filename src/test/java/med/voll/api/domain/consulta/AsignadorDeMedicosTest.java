@@ -0,0 +1,139 @@
+package med.voll.api.domain.consulta;
+
+import med.voll.api.domain.consulta.calendario.CalendarioDeAtencion;
+import med.voll.api.domain.consulta.ocupacion.OcupacionDeAgendas;
+import med.voll.api.domain.medico.DatosEspecialidadMedico;
+import med.voll.api.domain.medico.Especialidad;
+import med.voll.api.domain.medico.MedicoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+//Indice de ocupacion real sobre repositorios simulados; el calendario deja reservar cualquier horario
+class AsignadorDeMedicosTest {
+
+    private static final ZoneId ZONA = ZoneId.of("UTC");
+    private static final LocalDateTime FECHA = LocalDate.of(2030, 1, 14).atTime(9, 0);
+    private static final Especialidad ESPECIALIDAD = Especialidad.PEDIATRIA;
+
+    private final MedicoRepository medicoRepository = mock(MedicoRepository.class);
+    private final CalendarioDeAtencion calendario = mock(CalendarioDeAtencion.class);
+    private OcupacionDeAgendas ocupacion;
+    private AsignadorDeMedicos asignador;
+
+    @BeforeEach
+    void crearAsignador() {
+        var consultaRepository = mock(ConsultaRepository.class);
+        when(consultaRepository.buscarOcupacionDesde(any())).thenReturn(List.of());
+        ocupacion = new OcupacionDeAgendas();
+        ReflectionTestUtils.setField(ocupacion, "repository", consultaRepository);
+        ReflectionTestUtils.setField(ocupacion, "reloj", Clock.fixed(FECHA.minusDays(7).atZone(ZONA).toInstant(), ZONA));
+        ReflectionTestUtils.setField(ocupacion, "horizonteDias", 14);
+        ocupacion.cargar();
+
+        when(calendario.reservable(any(), any(), any())).thenReturn(true);
+        asignador = new AsignadorDeMedicos();
+        ReflectionTestUtils.setField(asignador, "medicoRepository", medicoRepository);
+        ReflectionTestUtils.setField(asignador, "ocupacion", ocupacion);
+        ReflectionTestUtils.setField(asignador, "calendario", calendario);
+    }
+
+    @Test
+    @DisplayName("Sin la lista cargada deberia cargarla y seguir con otro medico si el primero esta descartado u ocupado")
+    void sinCargarSigueConOtroCandidato() {
+        activos(1L, 2L, 3L);
+        reclamarEnTransaccion(() -> ocupacion.reclamar(2L, FECHA));
+
+        assertThat(reclamarEnTransaccion(() -> asignador.reclamarMedicoLibre(ESPECIALIDAD, FECHA, Set.of(1L)))).isEqualTo(3L);
+        verify(medicoRepository, never()).elegirMedicoAleatorioDisponibleEnLaFecha(any(), any());
+    }
+
+    @Test
+    @DisplayName("Con todos los medicos descartados u ocupados deberia devolver null")
+    void sinCandidatoLibre() {
+        activos(1L, 2L);
+        reclamarEnTransaccion(() -> ocupacion.reclamar(2L, FECHA));
+
+        assertThat(reclamarEnTransaccion(() -> asignador.reclamarMedicoLibre(ESPECIALIDAD, FECHA, Set.of(1L)))).isNull();
+    }
+
+    @Test
+    @DisplayName("Reclamos concurrentes deberian dar cada horario de medico a una sola reserva")
+    void reclamosConcurrentes() throws Exception {
+        var medicos = new ArrayList<Long>();
+        for (var i = 1L; i <= 20; i++) {
+            medicos.add(i);
+        }
+        activos(medicos.toArray(Long[]::new));
+        asignador.cargar();
+        var horarios = 6;
+        var intentos = 1_000;
+
+        //las transacciones nunca terminan, asi cada reclamo ganado queda tomado hasta el final
+        var ganados = new ConcurrentLinkedQueue<String>();
+        var largada = new CountDownLatch(1);
+        var hilos = Executors.newFixedThreadPool(32);
+        try {
+            for (var i = 0; i < intentos; i++) {
+                var fecha = FECHA.plusHours(i % horarios);
+                hilos.execute(() -> {
+                    try {
+                        largada.await();
+                        var idMedico = reclamarEnTransaccion(() -> asignador.reclamarMedicoLibre(ESPECIALIDAD, fecha, Set.of()));
+                        if (idMedico != null) {
+                            ganados.add(idMedico + "@" + fecha);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            largada.countDown();
+        } finally {
+            hilos.shutdown();
+            assertThat(hilos.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+        }
+
+        assertThat(ganados).hasSize(medicos.size() * horarios).doesNotHaveDuplicates();
+    }
+
+    private void activos(Long... ids) {
+        var datos = new ArrayList<DatosEspecialidadMedico>();
+        for (var id : ids) {
+            datos.add(new DatosEspecialidadMedico(id, ESPECIALIDAD));
+        }
+        when(medicoRepository.buscarActivosConEspecialidad()).thenReturn(datos);
+    }
+
+    //simula una transaccion abierta en el hilo: el reclamo no se suelta al volver
+    private static <T> T reclamarEnTransaccion(Supplier<T> reclamo) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            return reclamo.get();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
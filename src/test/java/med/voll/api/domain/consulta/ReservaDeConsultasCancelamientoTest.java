@@ -0,0 +1,104 @@
+package med.voll.api.domain.consulta;
+
+import jakarta.persistence.EntityNotFoundException;
+import med.voll.api.DatosDePrueba;
+import med.voll.api.domain.ValidacionException;
+import med.voll.api.domain.consulta.calendario.CalendarioDeAtencion;
+import med.voll.api.domain.consulta.ocupacion.OcupacionDeAgendas;
+import med.voll.api.domain.medico.Especialidad;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//Las consultas se insertan por JDBC, asi no estan en el indice de ocupacion: es el caso de una consulta reservada por
+//otra instancia. La anticipacion del medico tiene que aplicarse igual
+@SpringBootTest
+@ActiveProfiles("h2")
+class ReservaDeConsultasCancelamientoTest {
+
+    @Autowired
+    private ReservaDeConsultas reserva;
+
+    @Autowired
+    private OcupacionDeAgendas ocupacion;
+
+    @Autowired
+    private CalendarioDeAtencion calendario;
+
+    @Autowired
+    private TransactionTemplate transaccion;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private ApplicationContext contexto;
+
+    @Test
+    @DisplayName("Fuera del indice deberia aplicar la anticipacion de cancelamiento del medico y no la de la clinica")
+    void anticipacionDelMedicoFueraDelIndice() {
+        var datos = new DatosDePrueba(contexto);
+        var medico = datos.medico(Especialidad.GINECOLOGIA);
+        //un año de anticipacion para cancelar; la clinica exige 24 horas
+        jdbc.update("insert into reglas_agenda(tipo, medico_id, cancelacion_minutos) values ('ANTICIPACION', ?, ?)",
+                medico, 365 * 24 * 60);
+        calendario.cargar();
+        var consulta = insertarConsulta(medico, datos.paciente());
+        assertThat(ocupacion.medicoDeConsulta(consulta)).isNull();
+
+        assertThatThrownBy(() -> cancelar(consulta))
+                .isInstanceOf(ValidacionException.class)
+                .hasMessageContaining("8760 horas");
+        assertThat(motivoCancelamiento(consulta)).isNull();
+    }
+
+    @Test
+    @DisplayName("Fuera del indice deberia cancelar si se cumple la anticipacion")
+    void cancelaFueraDelIndice() {
+        var datos = new DatosDePrueba(contexto);
+        var consulta = insertarConsulta(datos.medico(Especialidad.GINECOLOGIA), datos.paciente());
+
+        cancelar(consulta);
+
+        assertThat(motivoCancelamiento(consulta)).isEqualTo(MotivoCancelamiento.OTROS.name());
+    }
+
+    @Test
+    @DisplayName("Una consulta inexistente deberia responder 404")
+    void consultaInexistente() {
+        assertThatThrownBy(() -> cancelar(Long.MAX_VALUE)).isInstanceOf(EntityNotFoundException.class);
+    }
+
+    private void cancelar(Long consulta) {
+        transaccion.executeWithoutResult(estado -> reserva.cancelar(new DatosCancelamientoConsulta(consulta, MotivoCancelamiento.OTROS)));
+    }
+
+    private Long insertarConsulta(Long medico, Long paciente) {
+        var claves = new GeneratedKeyHolder();
+        jdbc.update(conexion -> {
+            var statement = conexion.prepareStatement("insert into consultas(medico_id, paciente_id, fecha) values (?, ?, ?)",
+                    Statement.RETURN_GENERATED_KEYS);
+            statement.setLong(1, medico);
+            statement.setLong(2, paciente);
+            statement.setTimestamp(3, Timestamp.valueOf(DatosDePrueba.lunes(20)));
+            return statement;
+        }, claves);
+        return claves.getKey().longValue();
+    }
+
+    private String motivoCancelamiento(Long consulta) {
+        return jdbc.queryForObject("select motivo_cancelamiento from consultas where id = ?", String.class, consulta);
+    }
+}
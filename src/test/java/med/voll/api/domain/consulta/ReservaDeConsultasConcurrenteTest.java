@@ -0,0 +1,111 @@
+package med.voll.api.domain.consulta;
+
+import med.voll.api.DatosDePrueba;
+import med.voll.api.domain.ValidacionException;
+import med.voll.api.domain.consulta.ocupacion.OcupacionDeAgendas;
+import med.voll.api.domain.medico.Especialidad;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//Muchas reservas en paralelo sobre pocos horarios, la mitad con medico elegido y la mitad por especialidad: ningun
+//horario de medico puede quedar con dos consultas activas. En H2 no existe la restriccion unica de MySQL, asi que
+//cualquier duplicado viene del reclamo en memoria. PruebaDeReservasConcurrentes mide el rendimiento del mismo caso.
+//Prueba de carga fuera de mvn test: con tantos inserts en paralelo H2 puede fallar en la columna IDENTITY.
+//Se corre con mvn -Pcarga test; AsignadorDeMedicosTest cubre los reclamos concurrentes sin base
+@Tag("carga")
+@SpringBootTest
+@ActiveProfiles("h2")
+class ReservaDeConsultasConcurrenteTest {
+
+    private static final int RESERVAS = 1_000;
+    private static final int HILOS = 32;
+    private static final int HORARIOS = 6;
+    private static final int MEDICOS = 20;
+
+    @Autowired
+    private ReservaDeConsultas reserva;
+
+    @Autowired
+    private OcupacionDeAgendas ocupacion;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private ApplicationContext contexto;
+
+    @Test
+    @DisplayName("Reservas concurrentes no deberian dejar dos consultas activas en el mismo horario de un medico")
+    void sinReservasDuplicadas() throws Exception {
+        var datos = new DatosDePrueba(contexto);
+        var especialidad = Especialidad.PEDIATRIA;
+        var medicos = new ArrayList<Long>();
+        for (var i = 0; i < MEDICOS; i++) {
+            medicos.add(datos.medico(especialidad));
+        }
+        //un paciente distinto por reserva para que solo compitan por el horario del medico
+        var pacientes = new ArrayList<Long>();
+        for (var i = 0; i < RESERVAS; i++) {
+            pacientes.add(datos.paciente());
+        }
+        var primerHorario = DatosDePrueba.lunes(10).withHour(8);
+
+        var aceptadas = new ConcurrentLinkedQueue<DatosDetalleConsulta>();
+        var errores = new ConcurrentLinkedQueue<Exception>();
+        var ejecutor = Executors.newFixedThreadPool(HILOS);
+        var listos = new CountDownLatch(1);
+        for (var paciente : pacientes) {
+            ejecutor.execute(() -> {
+                try {
+                    listos.await();
+                    var azar = ThreadLocalRandom.current();
+                    var fecha = primerHorario.plusHours(azar.nextInt(HORARIOS));
+                    aceptadas.add(reserva.reservar(azar.nextBoolean()
+                            ? new DatosReservaConsulta(medicos.get(azar.nextInt(MEDICOS)), paciente, fecha, null)
+                            : new DatosReservaConsulta(null, paciente, fecha, especialidad)));
+                } catch (ValidacionException e) {
+                    //horario ya tomado o sin medico libre: rechazo esperado
+                } catch (Exception e) {
+                    errores.add(e);
+                }
+            });
+        }
+        listos.countDown();
+        ejecutor.shutdown();
+        assertThat(ejecutor.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+
+        assertThat(errores).isEmpty();
+        assertThat(aceptadas).isNotEmpty();
+        var desde = Timestamp.valueOf(primerHorario);
+        var hasta = Timestamp.valueOf(primerHorario.plusHours(HORARIOS));
+        var duplicados = jdbc.queryForObject("""
+                select count(*) from (
+                    select medico_id, fecha from consultas
+                    where motivo_cancelamiento is null and fecha >= ? and fecha < ?
+                    group by medico_id, fecha
+                    having count(*) > 1) d
+                """, Long.class, desde, hasta);
+        assertThat(duplicados).isZero();
+        var guardadas = jdbc.queryForObject("select count(*) from consultas where fecha >= ? and fecha < ?",
+                Long.class, desde, hasta);
+        assertThat(guardadas).isEqualTo(aceptadas.size());
+        List.copyOf(aceptadas).forEach(c -> assertThat(ocupacion.medicoOcupado(c.idMedico(), c.fecha())).isTrue());
+    }
+}
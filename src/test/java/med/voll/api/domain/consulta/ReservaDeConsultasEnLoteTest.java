@@ -0,0 +1,121 @@
+package med.voll.api.domain.consulta;
+
+import med.voll.api.DatosDePrueba;
+import med.voll.api.domain.ValidacionException;
+import med.voll.api.domain.consulta.ocupacion.OcupacionDeAgendas;
+import med.voll.api.domain.medico.Especialidad;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class ReservaDeConsultasEnLoteTest {
+
+    @Autowired
+    private ReservaDeConsultasEnLote reservaEnLote;
+
+    @Autowired
+    private OcupacionDeAgendas ocupacion;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private ApplicationContext contexto;
+
+    private DatosDePrueba datos;
+
+    @BeforeEach
+    void crearDatos() {
+        datos = new DatosDePrueba(contexto);
+    }
+
+    @Test
+    @DisplayName("Deberia devolver un resultado por item en el mismo orden, con los items invalidos y nulos como fallo")
+    void resultadosEnOrden() {
+        var medico = datos.medico(Especialidad.CARDIOLOGIA);
+        var fecha = DatosDePrueba.lunes(1);
+        var lote = Arrays.asList(
+                new DatosReservaConsulta(medico, datos.paciente(), fecha, null),
+                new DatosReservaConsulta(medico, -1L, fecha.plusHours(1), null),
+                new DatosReservaConsulta(medico, datos.paciente(), fecha.plusHours(2), null),
+                null,
+                new DatosReservaConsulta(medico, null, fecha.plusHours(3), null));
+
+        var resultados = reservaEnLote.reservar(lote);
+
+        assertThat(resultados).extracting(DatosResultadoReserva::indice).containsExactly(0, 1, 2, 3, 4);
+        assertThat(resultados.get(0).consulta().fecha()).isEqualTo(fecha);
+        assertThat(resultados.get(1).error()).isEqualTo("No existe un paciente con el id informado");
+        assertThat(resultados.get(2).consulta().fecha()).isEqualTo(fecha.plusHours(2));
+        assertThat(resultados.get(3).error()).isEqualTo("Item del lote vacio");
+        assertThat(resultados.get(4).error()).startsWith("idPaciente: ");
+        assertThat(consultasDelMedico(medico)).isEqualTo(2);
+        assertThat(ocupacion.medicoOcupado(medico, fecha)).isTrue();
+        assertThat(ocupacion.medicoOcupado(medico, fecha.plusHours(1))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deberia rechazar el item que repite el horario de medico o el dia de paciente de un item anterior")
+    void conflictosDentroDelLote() {
+        var medico = datos.medico(Especialidad.GINECOLOGIA);
+        var otroMedico = datos.medico(Especialidad.GINECOLOGIA);
+        var paciente = datos.paciente();
+        var fecha = DatosDePrueba.lunes(2);
+        var lote = Arrays.asList(
+                new DatosReservaConsulta(medico, paciente, fecha, null),
+                new DatosReservaConsulta(medico, datos.paciente(), fecha, null),
+                new DatosReservaConsulta(otroMedico, paciente, fecha.plusHours(3), null),
+                new DatosReservaConsulta(otroMedico, datos.paciente(), fecha, null));
+
+        var resultados = reservaEnLote.reservar(lote);
+
+        assertThat(resultados.get(0).consulta()).isNotNull();
+        assertThat(resultados.get(1).error()).isEqualTo("Medico ya tiene otra consulta en esa misma fecha y hora");
+        assertThat(resultados.get(2).error()).isEqualTo("Paciente ya tiene una consulta reservada para ese dia");
+        assertThat(resultados.get(3).consulta().idMedico()).isEqualTo(otroMedico);
+        assertThat(consultasDelMedico(medico)).isEqualTo(1);
+        assertThat(consultasDelMedico(otroMedico)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deberia rechazar un item contra las consultas ya confirmadas de lotes anteriores")
+    void conflictoConLoteAnterior() {
+        var medico = datos.medico(Especialidad.ORTOPEDIA);
+        var fecha = DatosDePrueba.lunes(3);
+        reservaEnLote.reservar(List.of(new DatosReservaConsulta(medico, datos.paciente(), fecha, null)));
+
+        var resultados = reservaEnLote.reservar(List.of(new DatosReservaConsulta(medico, datos.paciente(), fecha, null)));
+
+        assertThat(resultados.get(0).error()).isEqualTo("Medico ya tiene otra consulta en esa misma fecha y hora");
+        assertThat(consultasDelMedico(medico)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deberia rechazar el lote completo cuando supera el maximo")
+    void loteSuperaElMaximo() {
+        var lote = new ArrayList<DatosReservaConsulta>(Collections.nCopies(501, null));
+
+        assertThatThrownBy(() -> reservaEnLote.reservar(lote))
+                .isInstanceOf(ValidacionException.class)
+                .hasMessage("El lote supera el maximo de 500 consultas");
+    }
+
+    private long consultasDelMedico(Long idMedico) {
+        return jdbc.queryForObject("select count(*) from consultas where medico_id = ?", Long.class, idMedico);
+    }
+}
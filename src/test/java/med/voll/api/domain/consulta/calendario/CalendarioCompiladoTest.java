@@ -0,0 +1,198 @@
+package med.voll.api.domain.consulta.calendario;
+
+import med.voll.api.domain.consulta.HorarioClinica;
+import med.voll.api.domain.medico.Especialidad;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CalendarioCompiladoTest {
+
+    private static final LocalDate LUNES = LocalDate.of(2030, 1, 7);
+    private static final LocalDate MARTES = LUNES.plusDays(1);
+    private static final Long MEDICO = 1L;
+    private static final Long OTRO_MEDICO = 2L;
+
+    @Test
+    @DisplayName("Sin reglas deberia usar el horario historico y las anticipaciones por defecto")
+    void sinReglas() {
+        var calendario = CalendarioCompilado.compilar(List.of(), List.of());
+
+        assertThat(calendario.horasDeAtencion(MEDICO, Especialidad.CARDIOLOGIA, LUNES)).isEqualTo(HorarioClinica.horasDeAtencion(LUNES));
+        assertThat(calendario.horasDeAtencion(null, null, LUNES.plusDays(6))).isZero();
+        assertThat(calendario.anticipacionReserva(MEDICO, Especialidad.CARDIOLOGIA)).isEqualTo(Duration.ofMinutes(30));
+        assertThat(calendario.anticipacionCancelamiento(MEDICO, Especialidad.CARDIOLOGIA)).isEqualTo(Duration.ofHours(24));
+    }
+
+    @Test
+    @DisplayName("La mascara deberia cubrir de la hora de inicio a la de fin inclusive, tambien en los extremos del dia")
+    void limitesDeLaMascara() {
+        var calendario = CalendarioCompilado.compilar(List.of(
+                horario(null, 1, 0, 23),
+                horario(null, 2, 23, 23),
+                horario(null, 3, 0, 0),
+                horario(null, 4, 8, 12)), List.of());
+
+        assertThat(calendario.horasDeAtencion(null, null, LUNES)).isEqualTo((1L << 24) - 1);
+        assertThat(calendario.horasDeAtencion(null, null, MARTES)).isEqualTo(1L << 23);
+        assertThat(calendario.horasDeAtencion(null, null, LUNES.plusDays(2))).isEqualTo(1L);
+        assertThat(calendario.horasDeAtencion(null, null, LUNES.plusDays(3))).isEqualTo(0b1_1111L << 8);
+        assertThat(calendario.horasDeAtencion(null, null, LUNES.plusDays(4))).isZero();
+    }
+
+    @Test
+    @DisplayName("Dos reglas del mismo dia deberian sumar sus horas")
+    void reglasDelMismoDia() {
+        var calendario = CalendarioCompilado.compilar(List.of(horario(null, 1, 8, 9), horario(null, 1, 14, 15)), List.of());
+
+        assertThat(calendario.horasDeAtencion(null, null, LUNES)).isEqualTo(0b11L << 8 | 0b11L << 14);
+    }
+
+    @Test
+    @DisplayName("Las jornadas del medico deberian tener precedencia sobre la especialidad, siempre dentro del horario de la clinica")
+    void precedenciaDeHorarios() {
+        var calendario = CalendarioCompilado.compilar(List.of(
+                horario(null, 1, 8, 17),
+                horario(null, 2, 8, 17),
+                horario(Especialidad.CARDIOLOGIA, 1, 12, 20),
+                horario(Especialidad.CARDIOLOGIA, 2, 8, 17)), List.of(
+                jornada(MEDICO, 1, 6, 9)));
+
+        assertThat(calendario.horasDeAtencion(MEDICO, Especialidad.CARDIOLOGIA, LUNES)).isEqualTo(0b11L << 8);
+        assertThat(calendario.horasDeAtencion(OTRO_MEDICO, Especialidad.CARDIOLOGIA, LUNES)).isEqualTo(0b11_1111L << 12);
+        assertThat(calendario.horasDeAtencion(OTRO_MEDICO, Especialidad.PEDIATRIA, LUNES)).isEqualTo(0x3FFL << 8);
+        //el medico con jornadas no atiende los dias que no estan en ellas, aunque la especialidad si
+        assertThat(calendario.horasDeAtencion(OTRO_MEDICO, Especialidad.CARDIOLOGIA, MARTES)).isNotZero();
+        assertThat(calendario.horasDeAtencion(MEDICO, Especialidad.CARDIOLOGIA, MARTES)).isZero();
+    }
+
+    @Test
+    @DisplayName("La version por lista de medicos deberia dar lo mismo que la de un medico")
+    void horasDeAtencionEnLote() {
+        var medicos = List.of(MEDICO, OTRO_MEDICO, 3L);
+        var soloComunes = CalendarioCompilado.compilar(List.of(
+                horario(null, 1, 8, 17),
+                horario(Especialidad.CARDIOLOGIA, 1, 12, 20),
+                feriado(Especialidad.CARDIOLOGIA, null, MARTES)), List.of());
+        var conMedicos = CalendarioCompilado.compilar(List.of(
+                horario(null, 1, 8, 17),
+                horario(null, 3, 0, 23),
+                horario(Especialidad.CARDIOLOGIA, 1, 12, 20),
+                feriado(null, null, LUNES.plusDays(3)),
+                feriado(null, OTRO_MEDICO, LUNES.plusDays(2))), List.of(
+                jornada(MEDICO, 1, 6, 9),
+                jornada(MEDICO, 3, 20, 23)));
+
+        for (var calendario : List.of(soloComunes, conMedicos)) {
+            for (var especialidad : List.of(Especialidad.CARDIOLOGIA, Especialidad.PEDIATRIA)) {
+                for (var dia = LUNES; dia.isBefore(LUNES.plusDays(7)); dia = dia.plusDays(1)) {
+                    //relleno para comprobar que se escribe cada posicion
+                    var destino = new long[]{-1L, -1L, -1L};
+                    calendario.horasDeAtencion(medicos, especialidad, dia, destino);
+                    for (var i = 0; i < medicos.size(); i++) {
+                        assertThat(destino[i])
+                                .as("medico %d, %s, %s", medicos.get(i), especialidad, dia)
+                                .isEqualTo(calendario.horasDeAtencion(medicos.get(i), especialidad, dia));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Un feriado de cualquier alcance deberia cerrar el dia solo dentro de ese alcance")
+    void feriadosPorAlcance() {
+        var calendario = CalendarioCompilado.compilar(List.of(
+                feriado(null, null, LUNES),
+                feriado(Especialidad.CARDIOLOGIA, null, MARTES),
+                feriado(null, MEDICO, LUNES.plusDays(2))), List.of());
+
+        assertThat(calendario.feriado(OTRO_MEDICO, Especialidad.PEDIATRIA, LUNES)).isTrue();
+        assertThat(calendario.horasDeAtencion(OTRO_MEDICO, Especialidad.PEDIATRIA, LUNES)).isZero();
+
+        assertThat(calendario.horasDeAtencion(OTRO_MEDICO, Especialidad.CARDIOLOGIA, MARTES)).isZero();
+        assertThat(calendario.horasDeAtencion(OTRO_MEDICO, Especialidad.PEDIATRIA, MARTES)).isNotZero();
+        assertThat(calendario.feriado(null, null, MARTES)).isFalse();
+
+        assertThat(calendario.horasDeAtencion(MEDICO, Especialidad.PEDIATRIA, LUNES.plusDays(2))).isZero();
+        assertThat(calendario.horasDeAtencion(OTRO_MEDICO, Especialidad.PEDIATRIA, LUNES.plusDays(2))).isNotZero();
+    }
+
+    @Test
+    @DisplayName("La anticipacion mas especifica deberia ganar campo por campo")
+    void precedenciaDeAnticipaciones() {
+        var calendario = CalendarioCompilado.compilar(List.of(
+                anticipacion(null, null, 60, 2880),
+                anticipacion(Especialidad.CARDIOLOGIA, null, 120, null),
+                anticipacion(null, MEDICO, null, 10)), List.of());
+
+        assertThat(calendario.anticipacionReserva(MEDICO, Especialidad.CARDIOLOGIA)).isEqualTo(Duration.ofMinutes(120));
+        assertThat(calendario.anticipacionCancelamiento(MEDICO, Especialidad.CARDIOLOGIA)).isEqualTo(Duration.ofMinutes(10));
+        assertThat(calendario.anticipacionReserva(OTRO_MEDICO, Especialidad.CARDIOLOGIA)).isEqualTo(Duration.ofMinutes(120));
+        assertThat(calendario.anticipacionCancelamiento(OTRO_MEDICO, Especialidad.CARDIOLOGIA)).isEqualTo(Duration.ofMinutes(2880));
+        assertThat(calendario.anticipacionReserva(MEDICO, Especialidad.PEDIATRIA)).isEqualTo(Duration.ofMinutes(60));
+        assertThat(calendario.anticipacionCancelamiento(null, null)).isEqualTo(Duration.ofMinutes(2880));
+    }
+
+    @Test
+    @DisplayName("Dos reglas de anticipacion del mismo alcance deberian combinarse")
+    void combinarAnticipaciones() {
+        var anterior = new CalendarioCompilado.Anticipacion(Duration.ofMinutes(30), Duration.ofMinutes(60));
+
+        assertThat(anterior.combinar(new CalendarioCompilado.Anticipacion(null, Duration.ofMinutes(90))))
+                .isEqualTo(new CalendarioCompilado.Anticipacion(Duration.ofMinutes(30), Duration.ofMinutes(90)));
+        assertThat(anterior.combinar(new CalendarioCompilado.Anticipacion(Duration.ofMinutes(45), null)))
+                .isEqualTo(new CalendarioCompilado.Anticipacion(Duration.ofMinutes(45), Duration.ofMinutes(60)));
+        assertThat(anterior.combinar(new CalendarioCompilado.Anticipacion(null, null))).isEqualTo(anterior);
+
+        var calendario = CalendarioCompilado.compilar(List.of(
+                anticipacion(null, MEDICO, 45, null),
+                anticipacion(null, MEDICO, null, 15)), List.of());
+        assertThat(calendario.anticipacionReserva(MEDICO, null)).isEqualTo(Duration.ofMinutes(45));
+        assertThat(calendario.anticipacionCancelamiento(MEDICO, null)).isEqualTo(Duration.ofMinutes(15));
+    }
+
+    @Test
+    @DisplayName("Deberia rechazar reglas invalidas")
+    void reglasInvalidas() {
+        assertThatThrownBy(() -> CalendarioCompilado.compilar(List.of(horarioDeMedico(MEDICO, 1, 8, 12)), List.of()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("jornadas");
+        assertThatThrownBy(() -> CalendarioCompilado.compilar(List.of(horario(null, 1, 8, 24)), List.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CalendarioCompilado.compilar(List.of(horario(null, 8, 8, 12)), List.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CalendarioCompilado.compilar(List.of(horario(null, 1, 13, 12)), List.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CalendarioCompilado.compilar(List.of(feriado(null, null, null)), List.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CalendarioCompilado.compilar(List.of(), List.of(jornada(MEDICO, 0, 8, 12))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static ReglaAgenda horario(Especialidad especialidad, int diaSemana, int horaInicio, int horaFin) {
+        return new ReglaAgenda(null, TipoReglaAgenda.HORARIO, especialidad, null, diaSemana, horaInicio, horaFin, null, null, null);
+    }
+
+    private static ReglaAgenda horarioDeMedico(Long idMedico, int diaSemana, int horaInicio, int horaFin) {
+        return new ReglaAgenda(null, TipoReglaAgenda.HORARIO, null, idMedico, diaSemana, horaInicio, horaFin, null, null, null);
+    }
+
+    private static ReglaAgenda feriado(Especialidad especialidad, Long idMedico, LocalDate fecha) {
+        return new ReglaAgenda(null, TipoReglaAgenda.FERIADO, especialidad, idMedico, null, null, null, fecha, null, null);
+    }
+
+    private static ReglaAgenda anticipacion(Especialidad especialidad, Long idMedico, Integer reserva, Integer cancelacion) {
+        return new ReglaAgenda(null, TipoReglaAgenda.ANTICIPACION, especialidad, idMedico, null, null, null, null, reserva, cancelacion);
+    }
+
+    private static Jornada jornada(Long idMedico, int diaSemana, int horaInicio, int horaFin) {
+        return new Jornada(null, idMedico, diaSemana, horaInicio, horaFin);
+    }
+}
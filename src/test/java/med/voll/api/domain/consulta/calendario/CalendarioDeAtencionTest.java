@@ -0,0 +1,108 @@
+package med.voll.api.domain.consulta.calendario;
+
+import med.voll.api.domain.medico.Especialidad;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CalendarioDeAtencionTest {
+
+    //lunes
+    private static final LocalDate HOY = LocalDate.of(2030, 1, 7);
+    private static final long TODO_EL_DIA = (1L << 24) - 1;
+
+    private final ReglaAgendaRepository repository = mock(ReglaAgendaRepository.class);
+    private final JornadaRepository jornadaRepository = mock(JornadaRepository.class);
+    private CalendarioDeAtencion calendario;
+
+    @BeforeEach
+    void crearCalendario() {
+        calendario = new CalendarioDeAtencion();
+        ReflectionTestUtils.setField(calendario, "repository", repository);
+        ReflectionTestUtils.setField(calendario, "jornadaRepository", jornadaRepository);
+        ReflectionTestUtils.setField(calendario, "reloj", Clock.fixed(HOY.atTime(8, 0).atZone(ZoneId.of("UTC")).toInstant(), ZoneId.of("UTC")));
+        //la clinica atiende las 24 horas todos los dias, asi la mascara solo refleja la anticipacion
+        var reglas = new ArrayList<ReglaAgenda>();
+        for (var dia = 1; dia <= 7; dia++) {
+            reglas.add(new ReglaAgenda(null, TipoReglaAgenda.HORARIO, null, null, dia, 0, 23, null, null, null));
+        }
+        reglas.add(new ReglaAgenda(null, TipoReglaAgenda.ANTICIPACION, null, null, null, null, null, null, 30, null));
+        reglas.add(new ReglaAgenda(null, TipoReglaAgenda.ANTICIPACION, null, 2L, null, null, null, null, 180, null));
+        when(repository.findAll()).thenReturn(reglas);
+        when(jornadaRepository.findAll()).thenReturn(List.of());
+        calendario.cargar();
+    }
+
+    @Test
+    @DisplayName("Las horas reservables de hoy deberian empezar en la primera hora en punto despues de la anticipacion")
+    void anticipacionDentroDelDia() {
+        //10:00 + 30 minutos: las 10:30 no es hora en punto, la primera es las 11
+        assertThat(calendario.horasReservables(1L, null, HOY, HOY.atTime(10, 0))).isEqualTo(TODO_EL_DIA & (-1L << 11));
+        //09:30 + 30 minutos cae justo en las 10, que se puede reservar
+        assertThat(calendario.horasReservables(1L, null, HOY, HOY.atTime(9, 30))).isEqualTo(TODO_EL_DIA & (-1L << 10));
+        assertThat(calendario.horasReservables(1L, null, HOY, HOY.atTime(0, 0))).isEqualTo(TODO_EL_DIA & (-1L << 1));
+    }
+
+    @Test
+    @DisplayName("Los dias anteriores no tienen horas reservables y los posteriores tienen todas")
+    void otrosDias() {
+        var ahora = HOY.atTime(10, 0);
+
+        assertThat(calendario.horasReservables(1L, null, HOY.minusDays(1), ahora)).isZero();
+        assertThat(calendario.horasReservables(1L, null, HOY.plusDays(1), ahora)).isEqualTo(TODO_EL_DIA);
+    }
+
+    @Test
+    @DisplayName("Al final del dia la anticipacion deberia cerrar hoy y pasar al dia siguiente")
+    void finDelDia() {
+        //23:10 + 30 minutos = 23:40: ninguna hora de hoy
+        assertThat(calendario.horasReservables(1L, null, HOY, HOY.atTime(23, 10))).isZero();
+        assertThat(calendario.horasReservables(1L, null, HOY, HOY.atTime(23, 0))).isZero();
+        //23:40 + 30 minutos = 00:10 de mañana: la anticipacion tambien corta el dia siguiente
+        assertThat(calendario.horasReservables(1L, null, HOY.plusDays(1), HOY.atTime(23, 40))).isEqualTo(TODO_EL_DIA & (-1L << 1));
+        //22:30 + 30 minutos = 23:00: solo la ultima hora
+        assertThat(calendario.horasReservables(1L, null, HOY, HOY.atTime(22, 30))).isEqualTo(1L << 23);
+    }
+
+    @Test
+    @DisplayName("La version por lista deberia respetar la anticipacion propia de cada medico")
+    void horasReservablesEnLote() {
+        var medicos = List.of(1L, 2L, 3L);
+        for (var ahora : List.of(HOY.atTime(10, 0), HOY.atTime(21, 30), HOY.atTime(23, 10))) {
+            for (var dia : List.of(HOY, HOY.plusDays(1))) {
+                var destino = new long[medicos.size()];
+                calendario.horasReservables(medicos, Especialidad.PEDIATRIA, dia, ahora, destino);
+                for (var i = 0; i < medicos.size(); i++) {
+                    assertThat(destino[i])
+                            .as("medico %d, %s, %s", medicos.get(i), dia, ahora)
+                            .isEqualTo(calendario.horasReservables(medicos.get(i), Especialidad.PEDIATRIA, dia, ahora));
+                }
+            }
+        }
+        //el medico 2 reserva con 3 horas de anticipacion
+        var destino = new long[medicos.size()];
+        calendario.horasReservables(medicos, Especialidad.PEDIATRIA, HOY, HOY.atTime(10, 0), destino);
+        assertThat(destino).containsExactly(TODO_EL_DIA & (-1L << 11), TODO_EL_DIA & (-1L << 13), TODO_EL_DIA & (-1L << 11));
+    }
+
+    @Test
+    @DisplayName("Una regla invalida al recargar deberia dejar el calendario anterior")
+    void recargaInvalida() {
+        when(repository.findAll()).thenReturn(List.of(new ReglaAgenda(null, TipoReglaAgenda.FERIADO, null, null, null, null, null, null, null, null)));
+
+        calendario.recargar();
+
+        assertThat(calendario.horasReservables(1L, null, HOY.plusDays(1), HOY.atTime(10, 0))).isEqualTo(TODO_EL_DIA);
+    }
+}
@@ -0,0 +1,150 @@
+package med.voll.api.domain.consulta.disponibilidad;
+
+import med.voll.api.domain.ValidacionException;
+import med.voll.api.domain.consulta.AsignadorDeMedicos;
+import med.voll.api.domain.consulta.ConsultaRepository;
+import med.voll.api.domain.consulta.calendario.CalendarioDeAtencion;
+import med.voll.api.domain.consulta.calendario.JornadaRepository;
+import med.voll.api.domain.consulta.calendario.ReglaAgenda;
+import med.voll.api.domain.consulta.calendario.ReglaAgendaRepository;
+import med.voll.api.domain.consulta.calendario.TipoReglaAgenda;
+import med.voll.api.domain.consulta.ocupacion.DatosOcupacionConsulta;
+import med.voll.api.domain.consulta.ocupacion.OcupacionDeAgendas;
+import med.voll.api.domain.medico.Especialidad;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+//Calendario e indice de ocupacion reales sobre repositorios simulados; sin reglas de agenda la clinica atiende
+//de lunes a sabado de 7 a 18 con 30 minutos de anticipacion
+class BuscadorDeDisponibilidadTest {
+
+    private static final ZoneId ZONA = ZoneId.of("UTC");
+    //lunes a las 8: la primera hora reservable de hoy es las 9
+    private static final LocalDateTime AHORA = LocalDate.of(2030, 1, 7).atTime(8, 0);
+    private static final LocalDate HOY = AHORA.toLocalDate();
+    private static final Especialidad ESPECIALIDAD = Especialidad.CARDIOLOGIA;
+    private static final int HORIZONTE_DIAS = 14;
+
+    private final List<ReglaAgenda> reglas = new ArrayList<>();
+    private final List<DatosOcupacionConsulta> consultas = new ArrayList<>();
+
+    @Test
+    @DisplayName("Deberia devolver la primera hora libre de hoy y el primer medico que la tiene")
+    void primeraHoraDeHoy() {
+        assertThat(buscarProximo(List.of(10L, 11L), null))
+                .contains(new DatosProximoHorario(10L, HOY.atTime(9, 0)));
+    }
+
+    @Test
+    @DisplayName("Si el primer medico esta ocupado deberia tomar la misma hora de otro medico")
+    void otroMedicoMismaHora() {
+        ocupar(10L, HOY.atTime(9, 0));
+
+        assertThat(buscarProximo(List.of(10L, 11L), null))
+                .contains(new DatosProximoHorario(11L, HOY.atTime(9, 0)));
+    }
+
+    @Test
+    @DisplayName("Si todos estan ocupados a esa hora deberia pasar a la siguiente")
+    void siguienteHora() {
+        ocupar(10L, HOY.atTime(9, 0));
+        ocupar(11L, HOY.atTime(9, 0));
+        ocupar(10L, HOY.atTime(10, 0));
+
+        assertThat(buscarProximo(List.of(10L, 11L), null))
+                .contains(new DatosProximoHorario(11L, HOY.atTime(10, 0)));
+    }
+
+    @Test
+    @DisplayName("Deberia saltar los dias sin horas libres: agenda llena, feriado y domingo")
+    void saltarDias() {
+        for (var hora = 9; hora <= 18; hora++) {
+            ocupar(10L, HOY.atTime(hora, 0));
+        }
+        reglas.add(new ReglaAgenda(null, TipoReglaAgenda.FERIADO, ESPECIALIDAD, null, null, null, null, HOY.plusDays(1), null, null));
+        var sabado = HOY.plusDays(5);
+
+        assertThat(buscarProximo(List.of(10L), HOY.plusDays(6)))
+                .contains(new DatosProximoHorario(10L, HOY.plusDays(7).atTime(7, 0)));
+        assertThat(buscarProximo(List.of(10L), sabado))
+                .contains(new DatosProximoHorario(10L, sabado.atTime(7, 0)));
+        assertThat(buscarProximo(List.of(10L), null))
+                .contains(new DatosProximoHorario(10L, HOY.plusDays(2).atTime(7, 0)));
+    }
+
+    @Test
+    @DisplayName("Una fecha desde pasada deberia buscar desde hoy")
+    void desdePasado() {
+        assertThat(buscarProximo(List.of(10L), HOY.minusDays(3)))
+                .contains(new DatosProximoHorario(10L, HOY.atTime(9, 0)));
+    }
+
+    @Test
+    @DisplayName("Sin medicos o sin horas libres hasta el fin del horizonte deberia devolver vacio")
+    void sinHorarioLibre() {
+        assertThat(buscarProximo(List.of(), null)).isEmpty();
+        assertThat(buscarProximo(List.of(10L), HOY.plusDays(HORIZONTE_DIAS))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("La especialidad es obligatoria")
+    void especialidadObligatoria() {
+        var buscador = crearBuscador(List.of(10L));
+
+        assertThatThrownBy(() -> buscador.buscarProximo(null, HOY)).isInstanceOf(ValidacionException.class);
+    }
+
+    private void ocupar(Long idMedico, LocalDateTime fecha) {
+        consultas.add(new DatosOcupacionConsulta((long) consultas.size() + 1, idMedico, 100L + consultas.size(), fecha));
+    }
+
+    private Optional<DatosProximoHorario> buscarProximo(List<Long> medicos, LocalDate desde) {
+        return crearBuscador(medicos).buscarProximo(ESPECIALIDAD, desde);
+    }
+
+    private BuscadorDeDisponibilidad crearBuscador(List<Long> medicos) {
+        var reloj = Clock.fixed(AHORA.atZone(ZONA).toInstant(), ZONA);
+
+        var reglaAgendaRepository = mock(ReglaAgendaRepository.class);
+        var jornadaRepository = mock(JornadaRepository.class);
+        when(reglaAgendaRepository.findAll()).thenReturn(List.copyOf(reglas));
+        when(jornadaRepository.findAll()).thenReturn(List.of());
+        var calendario = new CalendarioDeAtencion();
+        ReflectionTestUtils.setField(calendario, "repository", reglaAgendaRepository);
+        ReflectionTestUtils.setField(calendario, "jornadaRepository", jornadaRepository);
+        ReflectionTestUtils.setField(calendario, "reloj", reloj);
+        calendario.cargar();
+
+        var consultaRepository = mock(ConsultaRepository.class);
+        when(consultaRepository.buscarOcupacionDesde(any())).thenReturn(List.copyOf(consultas));
+        var ocupacion = new OcupacionDeAgendas();
+        ReflectionTestUtils.setField(ocupacion, "repository", consultaRepository);
+        ReflectionTestUtils.setField(ocupacion, "reloj", reloj);
+        ReflectionTestUtils.setField(ocupacion, "horizonteDias", HORIZONTE_DIAS);
+        ocupacion.cargar();
+
+        var asignador = mock(AsignadorDeMedicos.class);
+        when(asignador.medicosActivos(ESPECIALIDAD)).thenReturn(medicos);
+
+        var buscador = new BuscadorDeDisponibilidad();
+        ReflectionTestUtils.setField(buscador, "calendario", calendario);
+        ReflectionTestUtils.setField(buscador, "ocupacion", ocupacion);
+        ReflectionTestUtils.setField(buscador, "asignador", asignador);
+        return buscador;
+    }
+}
@@ -0,0 +1,59 @@
+package med.voll.api.domain.consulta.exportacion;
+
+import med.voll.api.DatosDePrueba;
+import med.voll.api.domain.medico.Especialidad;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class ExportadorDeConsultasTest {
+
+    @Autowired
+    private ExportadorDeConsultas exportador;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private ApplicationContext contexto;
+
+    @Test
+    @DisplayName("Deberia exportar las consultas del rango en CSV y NDJSON, con los textos escapados")
+    void exportar() throws Exception {
+        var datos = new DatosDePrueba(contexto);
+        var medico = datos.medico(Especialidad.ORTOPEDIA);
+        var paciente = datos.paciente();
+        jdbc.update("update pacientes set nombre = 'Perez, \"Juan\"' where id = ?", paciente);
+        var fecha = DatosDePrueba.lunes(30);
+        jdbc.update("insert into consultas(medico_id, paciente_id, fecha) values (?, ?, ?)", medico, paciente, Timestamp.valueOf(fecha));
+        jdbc.update("insert into consultas(medico_id, paciente_id, fecha) values (?, ?, ?)", medico, paciente,
+                Timestamp.valueOf(fecha.plusDays(1)));
+
+        var csv = exportar(FormatoExportacion.CSV);
+        var ndjson = exportar(FormatoExportacion.NDJSON);
+
+        assertThat(csv.split("\r\n")).hasSize(2);
+        assertThat(csv).endsWith(",\"Perez, \"\"Juan\"\"\",\r\n").contains("," + fecha.toLocalDate() + "T10:00:00," + medico + ",");
+        assertThat(ndjson.split("\n")).hasSize(1);
+        assertThat(ndjson).contains("\"paciente\":\"Perez, \\\"Juan\\\"\"", "\"idMedico\":" + medico, "\"motivoCancelamiento\":null");
+    }
+
+    private String exportar(FormatoExportacion formato) throws Exception {
+        var salida = new ByteArrayOutputStream();
+        var dia = DatosDePrueba.lunes(30).toLocalDate();
+        exportador.exportar(dia, dia, formato, salida);
+        return salida.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,118 @@
+package med.voll.api.domain.consulta.idempotencia;
+
+import med.voll.api.DatosDePrueba;
+import med.voll.api.domain.ValidacionException;
+import med.voll.api.domain.consulta.DatosReservaConsulta;
+import med.voll.api.domain.consulta.ReservaDeConsultas;
+import med.voll.api.domain.medico.Especialidad;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class ReservaIdempotenteTest {
+
+    @Autowired
+    private ReservaIdempotente reservaIdempotente;
+
+    @Autowired
+    private ReservaDeConsultas reserva;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private Clock reloj;
+
+    @Autowired
+    private ApplicationContext contexto;
+
+    @Test
+    @DisplayName("Repetir la misma clave deberia devolver la misma consulta sin reservar otra")
+    void reintentoConLaMismaClave() {
+        var datos = new DatosDePrueba(contexto);
+        var paciente = datos.paciente();
+        var reservaConsulta = new DatosReservaConsulta(datos.medico(Especialidad.CARDIOLOGIA), paciente, DatosDePrueba.lunes(40), null);
+        var clave = UUID.randomUUID().toString();
+
+        var primera = reservaIdempotente.reservar("idempotencia", clave, reservaConsulta);
+        var segunda = reservaIdempotente.reservar("idempotencia", clave, reservaConsulta);
+
+        assertThat(segunda).isEqualTo(primera);
+        assertThat(consultasDelPaciente(paciente)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("La misma clave con otros datos deberia rechazarse")
+    void claveReutilizadaConOtrosDatos() {
+        var datos = new DatosDePrueba(contexto);
+        var medico = datos.medico(Especialidad.CARDIOLOGIA);
+        var paciente = datos.paciente();
+        var clave = UUID.randomUUID().toString();
+        reservaIdempotente.reservar("idempotencia", clave, new DatosReservaConsulta(medico, paciente, DatosDePrueba.lunes(41), null));
+
+        assertThatThrownBy(() -> reservaIdempotente.reservar("idempotencia", clave,
+                new DatosReservaConsulta(medico, paciente, DatosDePrueba.lunes(41).plusHours(1), null)))
+                .isInstanceOf(ValidacionException.class)
+                .hasMessage("La Idempotency-Key ya se uso para otra reserva");
+        //la clave es por usuario: otro usuario puede usarla
+        var otroPaciente = datos.paciente();
+        var deOtroUsuario = reservaIdempotente.reservar("otro-usuario", clave,
+                new DatosReservaConsulta(medico, otroPaciente, DatosDePrueba.lunes(41).plusHours(1), null));
+        assertThat(deOtroUsuario.idPaciente()).isEqualTo(otroPaciente);
+    }
+
+    @Test
+    @DisplayName("Una clave vencida que todavia no se purgo deberia poder usarse para una reserva nueva")
+    void claveVencidaSinPurgar() {
+        var datos = new DatosDePrueba(contexto);
+        var medico = datos.medico(Especialidad.CARDIOLOGIA);
+        var clave = UUID.randomUUID().toString();
+        var anterior = nuevoServicio().reservar("idempotencia", clave,
+                new DatosReservaConsulta(medico, datos.paciente(), DatosDePrueba.lunes(42), null));
+        jdbc.update("update claves_idempotencia set creado = ? where usuario = 'idempotencia' and clave = ?",
+                Timestamp.valueOf(LocalDateTime.now(reloj).minusHours(2)), clave);
+
+        var servicio = nuevoServicio();
+        var nueva = servicio.reservar("idempotencia", clave,
+                new DatosReservaConsulta(medico, datos.paciente(), DatosDePrueba.lunes(42).plusHours(1), null));
+
+        assertThat(nueva.id()).isNotEqualTo(anterior.id());
+        assertThat(jdbc.queryForObject("select consulta_id from claves_idempotencia where usuario = 'idempotencia' and clave = ?",
+                Long.class, clave)).isEqualTo(nueva.id());
+        assertThat(servicio.reservar("idempotencia", clave, new DatosReservaConsulta(medico, nueva.idPaciente(), nueva.fecha(), null)))
+                .isEqualTo(nueva);
+    }
+
+    //instancia con vigencia de una hora y su propio cache, vacio: el del bean compartido venceria junto con la fila
+    private ReservaIdempotente nuevoServicio() {
+        var servicio = new ReservaIdempotente(transactionManager, Duration.ofHours(1), 100);
+        ReflectionTestUtils.setField(servicio, "reserva", reserva);
+        ReflectionTestUtils.setField(servicio, "jdbcTemplate", jdbc);
+        ReflectionTestUtils.setField(servicio, "reloj", reloj);
+        return servicio;
+    }
+
+    private Long consultasDelPaciente(Long paciente) {
+        return jdbc.queryForObject("select count(*) from consultas where paciente_id = ?", Long.class, paciente);
+    }
+}
@@ -0,0 +1,196 @@
+package med.voll.api.domain.consulta.ocupacion;
+
+import med.voll.api.domain.consulta.ConsultaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OcupacionDeAgendasTest {
+
+    private static final ZoneId ZONA = ZoneId.of("UTC");
+    //lunes
+    private static final LocalDate HOY = LocalDate.of(2030, 1, 7);
+    private static final LocalDateTime MANANA_10 = HOY.plusDays(1).atTime(10, 0);
+
+    private final ConsultaRepository repository = mock(ConsultaRepository.class);
+    private OcupacionDeAgendas ocupacion;
+
+    @BeforeEach
+    void crearIndice() {
+        ocupacion = new OcupacionDeAgendas();
+        ReflectionTestUtils.setField(ocupacion, "repository", repository);
+        ReflectionTestUtils.setField(ocupacion, "horizonteDias", 30);
+        usarReloj(HOY);
+    }
+
+    @AfterEach
+    void limpiarTransaccion() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Deberia cargar horarios de medicos, dias de pacientes y el bitmap desde la BD")
+    void cargar() {
+        cargarCon(new DatosOcupacionConsulta(1L, 10L, 20L, MANANA_10));
+
+        assertThat(ocupacion.medicoOcupado(10L, MANANA_10)).isTrue();
+        assertThat(ocupacion.medicoOcupado(10L, MANANA_10.plusHours(1))).isFalse();
+        assertThat(ocupacion.medicoOcupado(null, MANANA_10)).isFalse();
+        assertThat(ocupacion.pacienteConConsultaEnElDia(20L, MANANA_10.toLocalDate())).isTrue();
+        assertThat(ocupacion.medicoDeConsulta(1L)).isEqualTo(10L);
+        assertThat(ocupacion.horasOcupadas(10L, MANANA_10.toLocalDate())).isEqualTo(1L << 10);
+    }
+
+    @Test
+    @DisplayName("Sin transaccion registrar y liberar se aplican en el momento")
+    void registrarYLiberarSinTransaccion() {
+        cargarCon();
+        ocupacion.registrar(new DatosOcupacionConsulta(1L, 10L, 20L, MANANA_10));
+        assertThat(ocupacion.medicoOcupado(10L, MANANA_10)).isTrue();
+
+        ocupacion.liberar(1L);
+        assertThat(ocupacion.medicoOcupado(10L, MANANA_10)).isFalse();
+        assertThat(ocupacion.pacienteConConsultaEnElDia(20L, MANANA_10.toLocalDate())).isFalse();
+        assertThat(ocupacion.medicoDeConsulta(1L)).isNull();
+        assertThat(ocupacion.horasOcupadas(10L, MANANA_10.toLocalDate())).isZero();
+    }
+
+    @Test
+    @DisplayName("Liberar una de dos consultas del mismo horario deja el horario ocupado")
+    void liberarConContador() {
+        cargarCon(new DatosOcupacionConsulta(1L, 10L, 20L, MANANA_10), new DatosOcupacionConsulta(2L, 10L, 21L, MANANA_10));
+
+        ocupacion.liberar(1L);
+        assertThat(ocupacion.medicoOcupado(10L, MANANA_10)).isTrue();
+        assertThat(ocupacion.horasOcupadas(10L, MANANA_10.toLocalDate())).isEqualTo(1L << 10);
+
+        ocupacion.liberar(2L);
+        assertThat(ocupacion.medicoOcupado(10L, MANANA_10)).isFalse();
+        assertThat(ocupacion.horasOcupadas(10L, MANANA_10.toLocalDate())).isZero();
+    }
+
+    @Test
+    @DisplayName("Dentro de una transaccion la reserva entra al indice solo cuando confirma")
+    void registrarTrasConfirmar() {
+        cargarCon();
+        TransactionSynchronizationManager.initSynchronization();
+        ocupacion.registrar(new DatosOcupacionConsulta(1L, 10L, 20L, MANANA_10));
+        assertThat(ocupacion.medicoOcupado(10L, MANANA_10)).isFalse();
+
+        confirmar();
+        assertThat(ocupacion.medicoOcupado(10L, MANANA_10)).isTrue();
+        assertThat(ocupacion.horasOcupadas(10L, MANANA_10.toLocalDate())).isEqualTo(1L << 10);
+    }
+
+    @Test
+    @DisplayName("Un rollback no deja horarios fantasma ni libera consultas")
+    void rollback() {
+        cargarCon(new DatosOcupacionConsulta(1L, 10L, 20L, MANANA_10));
+        TransactionSynchronizationManager.initSynchronization();
+        ocupacion.registrar(new DatosOcupacionConsulta(2L, 11L, 21L, MANANA_10));
+        ocupacion.liberar(1L);
+
+        deshacer();
+        assertThat(ocupacion.medicoOcupado(11L, MANANA_10)).isFalse();
+        assertThat(ocupacion.pacienteConConsultaEnElDia(21L, MANANA_10.toLocalDate())).isFalse();
+        assertThat(ocupacion.medicoOcupado(10L, MANANA_10)).isTrue();
+    }
+
+    @Test
+    @DisplayName("De dos reclamos del mismo horario gana uno y el reclamo se suelta al terminar la transaccion")
+    void reclamar() {
+        cargarCon();
+        TransactionSynchronizationManager.initSynchronization();
+        assertThat(ocupacion.reclamar(10L, MANANA_10)).isTrue();
+        assertThat(ocupacion.reclamar(10L, MANANA_10)).isFalse();
+        assertThat(ocupacion.medicoOcupado(10L, MANANA_10)).isTrue();
+
+        deshacer();
+        assertThat(ocupacion.medicoOcupado(10L, MANANA_10)).isFalse();
+        assertThat(ocupacion.reclamar(10L, MANANA_10)).isTrue();
+    }
+
+    @Test
+    @DisplayName("El horario reclamado y confirmado queda en el indice y no se puede volver a reclamar")
+    void reclamarYConfirmar() {
+        cargarCon();
+        TransactionSynchronizationManager.initSynchronization();
+        assertThat(ocupacion.reclamar(10L, MANANA_10)).isTrue();
+        ocupacion.registrar(new DatosOcupacionConsulta(1L, 10L, 20L, MANANA_10));
+
+        confirmar();
+        assertThat(ocupacion.medicoOcupado(10L, MANANA_10)).isTrue();
+        assertThat(ocupacion.reclamar(10L, MANANA_10)).isFalse();
+    }
+
+    @Test
+    @DisplayName("La purga quita las consultas de dias pasados y corre el horizonte del bitmap")
+    void purgarDiasPasados() {
+        var hoy10 = HOY.atTime(10, 0);
+        cargarCon(new DatosOcupacionConsulta(1L, 10L, 20L, hoy10), new DatosOcupacionConsulta(2L, 10L, 20L, MANANA_10));
+        assertThat(ocupacion.finDelHorizonte()).isEqualTo(HOY.plusDays(29));
+
+        usarReloj(HOY.plusDays(1));
+        ocupacion.purgarDiasPasados();
+
+        assertThat(ocupacion.medicoOcupado(10L, hoy10)).isFalse();
+        assertThat(ocupacion.medicoDeConsulta(1L)).isNull();
+        assertThat(ocupacion.pacienteConConsultaEnElDia(20L, HOY)).isFalse();
+        assertThat(ocupacion.medicoOcupado(10L, MANANA_10)).isTrue();
+        assertThat(ocupacion.horasOcupadas(10L, MANANA_10.toLocalDate())).isEqualTo(1L << 10);
+        assertThat(ocupacion.finDelHorizonte()).isEqualTo(HOY.plusDays(30));
+    }
+
+    @Test
+    @DisplayName("El bitmap ignora horarios que no son en punto o fuera del horizonte")
+    void bitmapSoloHorasEnPunto() {
+        var fueraDelHorizonte = HOY.plusDays(40).atTime(10, 0);
+        cargarCon(new DatosOcupacionConsulta(1L, 10L, 20L, MANANA_10.plusMinutes(30)),
+                new DatosOcupacionConsulta(2L, 10L, 21L, fueraDelHorizonte));
+
+        assertThat(ocupacion.medicoOcupado(10L, MANANA_10.plusMinutes(30))).isTrue();
+        assertThat(ocupacion.horasOcupadas(10L, MANANA_10.toLocalDate())).isZero();
+        assertThat(ocupacion.medicoOcupado(10L, fueraDelHorizonte)).isTrue();
+        assertThat(ocupacion.horasOcupadas(10L, fueraDelHorizonte.toLocalDate())).isZero();
+    }
+
+    private void cargarCon(DatosOcupacionConsulta... consultas) {
+        when(repository.buscarOcupacionDesde(any())).thenReturn(List.of(consultas));
+        ocupacion.cargar();
+    }
+
+    private void usarReloj(LocalDate dia) {
+        ReflectionTestUtils.setField(ocupacion, "reloj", Clock.fixed(dia.atTime(8, 0).atZone(ZONA).toInstant(), ZONA));
+    }
+
+    //lo que hace el administrador de transacciones al confirmar: afterCommit y despues afterCompletion
+    private static void confirmar() {
+        var sincronizaciones = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        sincronizaciones.forEach(TransactionSynchronization::afterCommit);
+        sincronizaciones.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    }
+
+    private static void deshacer() {
+        var sincronizaciones = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        sincronizaciones.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+    }
+}
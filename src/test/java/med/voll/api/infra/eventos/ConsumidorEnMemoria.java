@@ -0,0 +1,39 @@
+package med.voll.api.infra.eventos;
+
+import med.voll.api.domain.consulta.eventos.ConsumidorDeEventos;
+import med.voll.api.domain.consulta.eventos.EventoDeConsulta;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Consumidor para pruebas: guarda en memoria los eventos entregados y puede simular fallos en las proximas entregas
+@Component
+@Profile("h2")
+public class ConsumidorEnMemoria implements ConsumidorDeEventos {
+
+    private final List<EventoDeConsulta> recibidos = new CopyOnWriteArrayList<>();
+    private final AtomicInteger fallosPendientes = new AtomicInteger();
+
+    @Override
+    public void procesar(EventoDeConsulta evento) {
+        if (fallosPendientes.getAndUpdate(n -> Math.max(n - 1, 0)) > 0) {
+            throw new IllegalStateException("Fallo simulado al procesar " + evento);
+        }
+        recibidos.add(evento);
+    }
+
+    public void fallarProximas(int entregas) {
+        fallosPendientes.set(entregas);
+    }
+
+    public List<EventoDeConsulta> recibidos() {
+        return List.copyOf(recibidos);
+    }
+
+    public void limpiar() {
+        recibidos.clear();
+    }
+}
@@ -0,0 +1,146 @@
+package med.voll.api.infra.eventos;
+
+import med.voll.api.domain.consulta.MotivoCancelamiento;
+import med.voll.api.domain.consulta.eventos.ConsultaCancelada;
+import med.voll.api.domain.consulta.eventos.ConsultaReservada;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+//El perfil h2 despacha cada hora, asi las pruebas llaman a despacharLote sin competir con el ejecutor.
+//Las reservas de otras pruebas tambien dejan eventos en la bandeja; se borran antes de cada prueba
+@SpringBootTest
+@ActiveProfiles("h2")
+class DespachadorDeEventosTest {
+
+    private static final ConsultaReservada RESERVADA = new ConsultaReservada(900_001L, 1L, 2L, LocalDateTime.of(2030, 1, 7, 10, 0));
+    private static final ConsultaCancelada CANCELADA = new ConsultaCancelada(900_001L, 1L, MotivoCancelamiento.PACIENTE_DESISTIO);
+
+    @Autowired
+    private DespachadorDeEventos despachador;
+
+    @Autowired
+    private BandejaDeSalida bandeja;
+
+    @Autowired
+    private ConsumidorEnMemoria consumidor;
+
+    @Autowired
+    private TransactionTemplate transaccion;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private Clock reloj;
+
+    @BeforeEach
+    void vaciarBandeja() {
+        jdbc.update("delete from eventos_outbox");
+        consumidor.fallarProximas(0);
+        consumidor.limpiar();
+    }
+
+    @Test
+    @DisplayName("Un evento fallido deberia reintentarse con espera exponencial y borrarse al entregarse")
+    void reintentoConEspera() {
+        transaccion.executeWithoutResult(estado -> bandeja.publicar(RESERVADA));
+        consumidor.fallarProximas(2);
+
+        assertThat(despachador.despacharLote()).isEqualTo(1);
+        var pendiente = pendiente();
+        assertThat(pendiente.get("intentos")).isEqualTo(1);
+        assertThat((String) pendiente.get("ultimo_error")).startsWith("IllegalStateException: Fallo simulado");
+        assertThat(esperaHastaReintento(pendiente)).isCloseTo(Duration.ofSeconds(1).toMillis(), within(500L));
+        //todavia dentro de la espera: no se toma
+        assertThat(despachador.despacharLote()).isZero();
+
+        vencerEspera();
+        assertThat(despachador.despacharLote()).isEqualTo(1);
+        pendiente = pendiente();
+        assertThat(pendiente.get("intentos")).isEqualTo(2);
+        assertThat(esperaHastaReintento(pendiente)).isCloseTo(Duration.ofSeconds(2).toMillis(), within(500L));
+
+        vencerEspera();
+        assertThat(despachador.despacharLote()).isEqualTo(1);
+        assertThat(consumidor.recibidos()).containsExactly(RESERVADA);
+        assertThat(jdbc.queryForObject("select count(*) from eventos_outbox", Long.class)).isZero();
+    }
+
+    @Test
+    @DisplayName("Un cancelamiento no deberia entregarse antes que la reserva de la misma consulta")
+    void ordenPorConsulta() {
+        var otra = new ConsultaReservada(900_002L, 1L, 3L, LocalDateTime.of(2030, 1, 7, 11, 0));
+        transaccion.executeWithoutResult(estado -> {
+            bandeja.publicar(RESERVADA);
+            bandeja.publicar(CANCELADA);
+            bandeja.publicar(otra);
+        });
+        consumidor.fallarProximas(1);
+
+        //solo la reserva de cada consulta; falla la primera y la otra consulta no queda bloqueada
+        assertThat(despachador.despacharLote()).isEqualTo(2);
+        assertThat(consumidor.recibidos()).containsExactly(otra);
+
+        vencerEspera();
+        assertThat(despachador.despacharLote()).isEqualTo(1);
+        assertThat(despachador.despacharLote()).isEqualTo(1);
+        assertThat(consumidor.recibidos()).containsExactly(otra, RESERVADA, CANCELADA);
+    }
+
+    @Test
+    @DisplayName("Publicar fuera de una transaccion deberia fallar")
+    void publicarSinTransaccion() {
+        assertThatThrownBy(() -> bandeja.publicar(RESERVADA)).isInstanceOf(IllegalTransactionStateException.class);
+        assertThatThrownBy(() -> bandeja.publicar(List.of(RESERVADA, CANCELADA))).isInstanceOf(IllegalTransactionStateException.class);
+        assertThat(jdbc.queryForObject("select count(*) from eventos_outbox", Long.class)).isZero();
+    }
+
+    @Test
+    @DisplayName("Si la transaccion hace rollback el evento no deberia quedar en la bandeja")
+    void rollback() {
+        transaccion.executeWithoutResult(estado -> {
+            bandeja.publicar(RESERVADA);
+            estado.setRollbackOnly();
+        });
+
+        assertThat(despachador.despacharLote()).isZero();
+        assertThat(consumidor.recibidos()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("El despacho deberia correr en su propio hilo y no en el de @Scheduled")
+    void hiloPropio() {
+        assertThat(Thread.getAllStackTraces().keySet()).extracting(Thread::getName).contains("despacho-eventos");
+    }
+
+    private Map<String, Object> pendiente() {
+        return jdbc.queryForMap("select intentos, proximo_intento, ultimo_error from eventos_outbox");
+    }
+
+    private long esperaHastaReintento(Map<String, Object> pendiente) {
+        var proximo = ((Timestamp) pendiente.get("proximo_intento")).toLocalDateTime();
+        return Duration.between(LocalDateTime.now(reloj), proximo).toMillis();
+    }
+
+    private void vencerEspera() {
+        jdbc.update("update eventos_outbox set proximo_intento = creado");
+    }
+}
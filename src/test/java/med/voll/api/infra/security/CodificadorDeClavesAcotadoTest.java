@@ -0,0 +1,127 @@
+package med.voll.api.infra.security;
+
+import med.voll.api.infra.exceptions.TratadorDeErrores;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CodificadorDeClavesAcotadoTest {
+
+    private final CountDownLatch liberar = new CountDownLatch(1);
+    private final CountDownLatch enCurso = new CountDownLatch(1);
+    private CodificadorDeClavesAcotado codificador;
+
+    @AfterEach
+    void cerrar() {
+        liberar.countDown();
+        if (codificador != null) {
+            codificador.cerrar();
+        }
+    }
+
+    @Test
+    @DisplayName("Con el hilo ocupado y la cola llena deberia rechazar al instante")
+    void colaLlena() throws Exception {
+        codificador = new CodificadorDeClavesAcotado(new EncoderBloqueado(), 1, 1, 10_000);
+        var primero = CompletableFuture.supplyAsync(() -> codificador.matches("clave", "hash"));
+        assertThat(enCurso.await(5, TimeUnit.SECONDS)).isTrue();
+        var segundo = CompletableFuture.supplyAsync(() -> codificador.matches("clave", "hash"));
+        esperarCola(1);
+
+        var inicio = System.nanoTime();
+        assertThatThrownBy(() -> codificador.matches("clave", "hash")).isInstanceOf(LoginSaturadoException.class);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio)).isLessThan(1_000);
+        assertThat(codificador.estadisticas().rechazados()).isEqualTo(1);
+
+        liberar.countDown();
+        assertThat(primero.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(segundo.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(codificador.estadisticas().completados()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Si el hash no termina dentro de la espera maxima deberia rechazar")
+    void esperaVencida() {
+        codificador = new CodificadorDeClavesAcotado(new EncoderBloqueado(), 1, 5, 50);
+
+        assertThatThrownBy(() -> codificador.encode("clave")).isInstanceOf(LoginSaturadoException.class);
+        assertThat(codificador.estadisticas().rechazados()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Un hash en cola cuyo login ya se rindio no deberia calcularse ni ocupar la cola")
+    void abandonadoEnCola() throws Exception {
+        var encoder = new EncoderBloqueado();
+        codificador = new CodificadorDeClavesAcotado(encoder, 1, 5, 200);
+        var primero = CompletableFuture.runAsync(() -> codificador.matches("clave", "hash"));
+        assertThat(enCurso.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> codificador.matches("clave", "hash")).isInstanceOf(LoginSaturadoException.class);
+        assertThat(codificador.estadisticas().enCola()).isZero();
+
+        liberar.countDown();
+        assertThatThrownBy(() -> primero.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(LoginSaturadoException.class);
+        var limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (codificador.estadisticas().completados() < 1 && System.nanoTime() < limite) {
+            Thread.sleep(5);
+        }
+        assertThat(codificador.estadisticas().completados()).isEqualTo(1);
+        assertThat(encoder.llamadas.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("El login saturado deberia responder 503 con Retry-After")
+    void respuesta503() {
+        var respuesta = new TratadorDeErrores().tratarLoginSaturado(new LoginSaturadoException());
+
+        assertThat(respuesta.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(respuesta.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+    }
+
+    private void esperarCola(int tareas) throws InterruptedException {
+        var limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (codificador.estadisticas().enCola() < tareas && System.nanoTime() < limite) {
+            Thread.sleep(5);
+        }
+        assertThat(codificador.estadisticas().enCola()).isEqualTo(tareas);
+    }
+
+    //cada hash queda bloqueado hasta que la prueba lo libera
+    private class EncoderBloqueado implements PasswordEncoder {
+
+        private final AtomicInteger llamadas = new AtomicInteger();
+
+        @Override
+        public String encode(CharSequence clave) {
+            esperar();
+            return "hash";
+        }
+
+        @Override
+        public boolean matches(CharSequence clave, String hash) {
+            esperar();
+            return true;
+        }
+
+        private void esperar() {
+            llamadas.incrementAndGet();
+            enCurso.countDown();
+            try {
+                liberar.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package med.voll.api.infra.security;
+
+import jakarta.servlet.Filter;
+import med.voll.api.domain.usuarios.Usuario;
+import med.voll.api.domain.usuarios.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class SecurityConfigurationsTest {
+
+    @Autowired
+    private WebApplicationContext contexto;
+
+    @Autowired
+    @Qualifier("springSecurityFilterChain")
+    private Filter filtrosDeSeguridad;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private TokenService tokenService;
+
+    private MockMvc mvc;
+
+    @BeforeEach
+    void crearMockMvc() {
+        mvc = MockMvcBuilders.webAppContextSetup(contexto).addFilters(filtrosDeSeguridad).build();
+    }
+
+    @Test
+    @DisplayName("Las metricas de Prometheus no deberian ser publicas")
+    void prometheusConToken() throws Exception {
+        mvc.perform(get("/actuator/prometheus")).andExpect(status().isForbidden());
+
+        var login = "metricas." + UUID.randomUUID();
+        jdbc.update("insert into usuarios(login, clave) values (?, 'sin-uso')", login);
+        var token = tokenService.generarToken((Usuario) usuarioRepository.findByLogin(login));
+        mvc.perform(get("/actuator/prometheus").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Un token falsificado deberia responder 403")
+    void tokenFalsificado() throws Exception {
+        mvc.perform(get("/medicos").header(HttpHeaders.AUTHORIZATION, "Bearer falsificado")).andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("El health check deberia responder sin token")
+    void healthSinToken() throws Exception {
+        mvc.perform(get("/actuator/health")).andExpect(status().isOk());
+    }
+}
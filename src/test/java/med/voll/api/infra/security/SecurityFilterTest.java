@@ -0,0 +1,93 @@
+package med.voll.api.infra.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SecurityFilterTest {
+
+    private final TokenService tokenService = mock(TokenService.class);
+    private final CacheDeTokens cacheDeTokens = mock(CacheDeTokens.class);
+    private SecurityFilter filtro;
+
+    @BeforeEach
+    void crearFiltro() {
+        filtro = new SecurityFilter();
+        ReflectionTestUtils.setField(filtro, "tokenService", tokenService);
+        ReflectionTestUtils.setField(filtro, "cacheDeTokens", cacheDeTokens);
+        ReflectionTestUtils.setField(filtro, "limitador", new LimitadorDeSolicitudes(List.of("/**=2/PT1M")));
+        ReflectionTestUtils.setField(filtro, "registry", new SimpleMeterRegistry());
+        filtro.registrarMetricas();
+        when(tokenService.verificar(anyString())).thenThrow(new RuntimeException("Token JWT invalido o expirado!"));
+    }
+
+    @AfterEach
+    void limpiarContexto() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Un token invalido deberia contar en la cubeta de la IP y seguir sin autenticar")
+    void tokenInvalidoSinAutenticar() throws Exception {
+        var cadena = new MockFilterChain();
+        var respuesta = filtrar("10.0.0.1", "falsificado", cadena);
+
+        assertThat(respuesta.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(cadena.getRequest()).isNotNull();
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    @Test
+    @DisplayName("Los tokens invalidos no deberian saltear el limite de la IP")
+    void tokenInvalidoLimitadoPorIp() throws Exception {
+        filtrar("10.0.0.2", "falsificado-1", new MockFilterChain());
+        filtrar("10.0.0.2", null, new MockFilterChain());
+
+        var cadena = new MockFilterChain();
+        var respuesta = filtrar("10.0.0.2", "falsificado-2", cadena);
+
+        assertThat(respuesta.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(respuesta.getHeader(HttpHeaders.RETRY_AFTER)).isNotNull();
+        assertThat(cadena.getRequest()).isNull();
+        assertThat(filtrar("10.0.0.3", "falsificado-3", new MockFilterChain()).getStatus()).isEqualTo(HttpStatus.OK.value());
+        verify(tokenService, times(3)).verificar(anyString());
+    }
+
+    @Test
+    @DisplayName("Sin token no deberia verificar ninguna firma")
+    void sinToken() throws Exception {
+        filtrar("10.0.0.4", null, new MockFilterChain());
+
+        verify(tokenService, never()).verificar(anyString());
+    }
+
+    private MockHttpServletResponse filtrar(String ip, String token, MockFilterChain cadena) throws Exception {
+        var peticion = new MockHttpServletRequest("GET", "/medicos");
+        peticion.setRemoteAddr(ip);
+        if (token != null) {
+            peticion.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        }
+        var respuesta = new MockHttpServletResponse();
+        filtro.doFilter(peticion, respuesta, cadena);
+        return respuesta;
+    }
+}
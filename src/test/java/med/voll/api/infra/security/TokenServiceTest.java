@@ -0,0 +1,72 @@
+package med.voll.api.infra.security;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenServiceTest {
+
+    private static final String SECRETO_ORIGINAL = "secreto-original";
+
+    private TokenService tokenService;
+
+    @BeforeEach
+    void crearServicio() {
+        tokenService = new TokenService();
+        ReflectionTestUtils.setField(tokenService, "secret", SECRETO_ORIGINAL);
+        ReflectionTestUtils.setField(tokenService, "kid", "principal");
+        ReflectionTestUtils.setField(tokenService, "kidHeredado", "principal");
+        ReflectionTestUtils.setField(tokenService, "archivoClaves", "");
+        ReflectionTestUtils.setField(tokenService, "duracion", Duration.ofHours(2));
+        ReflectionTestUtils.setField(tokenService, "duracionRefresh", Duration.ofDays(7));
+        ReflectionTestUtils.setField(tokenService, "cacheDeTokens", new CacheDeTokens(100));
+        ReflectionTestUtils.setField(tokenService, "registry", new SimpleMeterRegistry());
+        tokenService.iniciar();
+    }
+
+    @Test
+    @DisplayName("Un token sin kid se sigue verificando con la clave original despues de rotar")
+    void tokenSinKidTrasRotar() {
+        var token = tokenSinKid(SECRETO_ORIGINAL);
+        tokenService.recargarClaves("nueva", Map.of("principal", SECRETO_ORIGINAL, "nueva", "secreto-nuevo"));
+
+        assertThat(tokenService.getSubject(token)).isEqualTo("usuario");
+    }
+
+    @Test
+    @DisplayName("Un token sin kid deja de ser valido cuando la clave original sale de las claves de verificacion")
+    void tokenSinKidSinClaveOriginal() {
+        var token = tokenSinKid(SECRETO_ORIGINAL);
+        tokenService.recargarClaves("nueva", Map.of("nueva", "secreto-nuevo"));
+
+        assertThatThrownBy(() -> tokenService.verificar(token)).isInstanceOf(RuntimeException.class);
+    }
+
+    @Test
+    @DisplayName("Un token sin kid firmado con otra clave no se acepta aunque esa clave sea la activa")
+    void tokenSinKidConClaveActiva() {
+        tokenService.recargarClaves("nueva", Map.of("principal", SECRETO_ORIGINAL, "nueva", "secreto-nuevo"));
+        var token = tokenSinKid("secreto-nuevo");
+
+        assertThatThrownBy(() -> tokenService.verificar(token)).isInstanceOf(RuntimeException.class);
+    }
+
+    private static String tokenSinKid(String secreto) {
+        return JWT.create()
+                .withIssuer("API Voll.med")
+                .withSubject("usuario")
+                .withExpiresAt(Instant.now().plusSeconds(600))
+                .sign(Algorithm.HMAC256(secreto));
+    }
+}